@@ -47,7 +47,18 @@ public abstract class CauseResolver implements ExtensionPoint {
     }
 
     public static TriggerCause getTrigger(Cause cause) {
-        List<CauseResolver> resolvers = all();
+        return getTrigger(cause, all());
+    }
+
+    /**
+     * Resolves the Cause against an already fetched list of resolvers, so that resolving several causes only looks
+     * up the extension list once.
+     *
+     * @param cause cause from the Jenkins build
+     * @param resolvers the resolvers to try in order, typically {@link #all()}
+     * @return the first TriggerCause found, or an unknown cause
+     */
+    public static TriggerCause getTrigger(Cause cause, List<CauseResolver> resolvers) {
         for (CauseResolver resolver : resolvers) {
             TriggerCause triggerCause = resolver.resolveCause(cause);
             if (triggerCause != null) {
@@ -17,6 +17,12 @@ If not, see <http://www.gnu.org/licenses/>.
 */
 package uw.iyyuan.jenkins.timeline;
 
+import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 import hudson.DescriptorExtensionList;
 import hudson.Extension;
@@ -54,25 +60,39 @@ import uw.iyyuan.jenkins.timeline.domain.Pipeline;
 import uw.iyyuan.jenkins.timeline.domain.PipelineException;
 import uw.iyyuan.jenkins.timeline.sort.ComponentComparator;
 import uw.iyyuan.jenkins.timeline.sort.ComponentComparatorDescriptor;
+import uw.iyyuan.jenkins.timeline.sort.SortKey;
 import uw.iyyuan.jenkins.timeline.trigger.ManualTrigger;
 import uw.iyyuan.jenkins.timeline.trigger.ManualTriggerFactory;
 import uw.iyyuan.jenkins.timeline.trigger.TriggerException;
+import uw.iyyuan.jenkins.timeline.util.Deadline;
 import uw.iyyuan.jenkins.timeline.util.JenkinsUtil;
+import uw.iyyuan.jenkins.timeline.util.PermissionPartition;
+import uw.iyyuan.jenkins.timeline.util.PipelineExecutors;
+import uw.iyyuan.jenkins.timeline.util.PipelineGovernor;
 import uw.iyyuan.jenkins.timeline.util.PipelineUtils;
 import uw.iyyuan.jenkins.timeline.util.ProjectUtil;
+import uw.iyyuan.jenkins.timeline.util.SearchHorizon;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
+import javax.annotation.CheckForNull;
 import javax.servlet.ServletException;
 
 public class DeliveryPipelineView extends View {
@@ -93,8 +113,21 @@ public class DeliveryPipelineView extends View {
     private static final String OLD_NONE_SORTER = "uw.iyyuan.jenkins.timeline.sort.NoOpComparator";
     private static final String NONE_SORTER = "none";
 
+    /**
+     * Default milliseconds a request waits for its components to be built, below the timeout of the browser. Waiting
+     * for other views to be computed first counts against it.
+     */
+    static final long TIMEOUT = Long.getLong(DeliveryPipelineView.class.getName() + ".timeout", 15000);
+
     static final String DEFAULT_THEME = "default";
 
+    // Keyed by the identity of the view, since a portlet creates a new view for every render
+    private static final ConcurrentMap<List<Object>, Future<BuiltComponent>> RUNNING_COMPONENTS =
+            CacheBuilder.newBuilder().expireAfterWrite(10, TimeUnit.MINUTES)
+                    .<List<Object>, Future<BuiltComponent>>build().asMap();
+    private static final Cache<List<Object>, Component> LAST_COMPONENTS = CacheBuilder.newBuilder()
+            .maximumSize(1000).expireAfterWrite(10, TimeUnit.MINUTES).build();
+
     private List<ComponentSpec> componentSpecs;
     private int noOfPipelines = DEFAULT_NO_OF_PIPELINES;
     private boolean showAggregatedPipeline = false;
@@ -131,7 +164,11 @@ public class DeliveryPipelineView extends View {
     private String displayArguments = "";
     private String displayArgumentsFile = "";    
 
-    private transient String error;
+    private int timeBudget = 0;
+    private int searchHorizonBuilds = 0;
+    private int searchHorizonDays = 0;
+
+    private transient volatile PipelinesSnapshot lastSnapshot;
 
     @DataBoundConstructor
     public DeliveryPipelineView(String name) {
@@ -331,6 +368,14 @@ public class DeliveryPipelineView extends View {
         return super.getViewUrl();
     }
 
+    /**
+     * Returns how the computations of all views are governed, to tell whether views wait for each other.
+     */
+    @Exported
+    public PipelineGovernor.Statistics getGovernor() {
+        return PipelineGovernor.getStatistics();
+    }
+
     @Override
     public Api getApi() {
         return new PipelineApi(this);
@@ -341,9 +386,24 @@ public class DeliveryPipelineView extends View {
         return PipelineUtils.formatTimestamp(System.currentTimeMillis());
     }
 
+    /**
+     * Returns the error from computing the pipelines of the current request, or of the last computation when
+     * called outside a request.
+     */
     @Exported
     public String getError() {
-        return error;
+        PipelinesSnapshot snapshot = getCurrentSnapshot();
+        return snapshot != null ? snapshot.error : null;
+    }
+
+    /**
+     * Returns true if the update of the current request ran out of time, so that some components show older data
+     * or are missing until a later update.
+     */
+    @Exported
+    public boolean isPartial() {
+        PipelinesSnapshot snapshot = getCurrentSnapshot();
+        return snapshot != null && snapshot.partial;
     }
 
     @Exported
@@ -430,6 +490,34 @@ public class DeliveryPipelineView extends View {
         this.maxNumberOfVisiblePipelines = maxNumberOfVisiblePipelines;
     }
 
+    public int getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(int timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    private long getTimeBudgetMillis() {
+        return timeBudget > 0 ? TimeUnit.SECONDS.toMillis(timeBudget) : TIMEOUT;
+    }
+
+    public int getSearchHorizonBuilds() {
+        return searchHorizonBuilds;
+    }
+
+    public void setSearchHorizonBuilds(int searchHorizonBuilds) {
+        this.searchHorizonBuilds = searchHorizonBuilds;
+    }
+
+    public int getSearchHorizonDays() {
+        return searchHorizonDays;
+    }
+
+    public void setSearchHorizonDays(int searchHorizonDays) {
+        this.searchHorizonDays = searchHorizonDays;
+    }
+
     @Exported
     public boolean isLinkToConsoleLog() {
         return linkToConsoleLog;
@@ -576,61 +664,248 @@ public class DeliveryPipelineView extends View {
 
     @Exported
     public List<Component> getPipelines() {
+        return new ArrayList<Component>(getSnapshot().components);
+    }
+
+    @CheckForNull
+    private PipelinesSnapshot getCurrentSnapshot() {
+        if (Stapler.getCurrentRequest() == null) {
+            return lastSnapshot;
+        }
+        return getSnapshot();
+    }
+
+    /**
+     * Returns the pipelines of the view. Within a request they are computed once, so that the pipelines, the error
+     * and the partial flag exported for the request all come from the same computation. Users that may read the same
+     * projects of the view share the computation, see {@link PermissionPartition}.
+     */
+    private PipelinesSnapshot getSnapshot() {
+        StaplerRequest req = Stapler.getCurrentRequest();
+        String attribute = PipelinesSnapshot.class.getName() + "@" + System.identityHashCode(this);
+        if (req != null && req.getAttribute(attribute) instanceof PipelinesSnapshot) {
+            return (PipelinesSnapshot) req.getAttribute(attribute);
+        }
+        LOG.fine("Getting pipelines!");
+        final PermissionPartition partition = PermissionPartition.of(getProjects());
+        String identity = getIdentity();
+        List<Object> key = Arrays.<Object>asList(identity, partition,
+                req == null ? null : req.getParameter("page"), req == null ? null : req.getParameter("component"),
+                isFullScreenView());
+        PipelinesSnapshot snapshot;
+        Deadline previous = Deadline.enter(new Deadline(getTimeBudgetMillis()));
         try {
-            LOG.fine("Getting pipelines!");
-            List<Component> components = new ArrayList<Component>();
-            if (componentSpecs != null) {
-                for (ComponentSpec componentSpec : componentSpecs) {
-                    AbstractProject firstJob = ProjectUtil.getProject(componentSpec.getFirstJob(), getOwnerItemGroup());
-                    AbstractProject lastJob = ProjectUtil.getProject(componentSpec.getLastJob(), getOwnerItemGroup());
-                    if (firstJob != null) {
-                        components.add(getComponent(componentSpec.getName(), firstJob,
-                                lastJob, showAggregatedPipeline, (componentSpecs.indexOf(componentSpec) + 1)));
-                    } else {
-                        throw new PipelineException("Could not find project: " + componentSpec.getFirstJob());
-                    }
+            snapshot = PipelineGovernor.compute(identity, key, new Callable<PipelinesSnapshot>() {
+                @Override
+                public PipelinesSnapshot call() {
+                    return computePipelines(partition);
                 }
-            }
-            if (regexpFirstJobs != null) {
-                for (RegExpSpec regexp : regexpFirstJobs) {
-                    Map<String, AbstractProject> matches = ProjectUtil.getProjects(regexp.getRegexp());
-                    int index = 1;
-                    for (Map.Entry<String, AbstractProject> entry : matches.entrySet()) {
-                        components.add(getComponent(entry.getKey(), entry.getValue(), null,
-                                showAggregatedPipeline, index));
-                        index++;
-                    }
+            }, PipelinesSnapshot.BUSY);
+        } finally {
+            Deadline.restore(previous);
+        }
+        if (req != null) {
+            req.setAttribute(attribute, snapshot);
+        }
+        lastSnapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Returns what identifies the view between requests. A portlet creates a new view for every render, so the view
+     * object itself would neither be found again by the next poll nor let go of by the shared caches.
+     */
+    private String getIdentity() {
+        return getViewUrl();
+    }
+
+    private PipelinesSnapshot computePipelines(PermissionPartition partition) {
+        SearchHorizon previousHorizon = SearchHorizon.enter(new SearchHorizon(searchHorizonBuilds, searchHorizonDays));
+        PermissionPartition previousPartition = PermissionPartition.enter(partition);
+        try {
+            return computePipelines(Deadline.current());
+        } finally {
+            PermissionPartition.restore(previousPartition);
+            SearchHorizon.restore(previousHorizon);
+        }
+    }
+
+    private PipelinesSnapshot computePipelines(Deadline deadline) {
+        List<String> errors = new ArrayList<String>();
+        List<String> pending = new ArrayList<String>();
+        List<ComponentCandidate> candidates = new ArrayList<ComponentCandidate>();
+        if (componentSpecs != null) {
+            for (ComponentSpec componentSpec : componentSpecs) {
+                AbstractProject firstJob = ProjectUtil.getProject(componentSpec.getFirstJob(), getOwnerItemGroup());
+                AbstractProject lastJob = ProjectUtil.getProject(componentSpec.getLastJob(), getOwnerItemGroup());
+                if (firstJob != null) {
+                    addCandidate(candidates, errors, componentSpec.getName(), firstJob, lastJob,
+                            (componentSpecs.indexOf(componentSpec) + 1));
+                } else {
+                    errors.add("Could not find project: " + componentSpec.getFirstJob());
                 }
             }
-            if (getSorting() != null && !getSorting().equals(NONE_SORTER)) {
-                ComponentComparatorDescriptor comparatorDescriptor = ComponentComparator.all().find(sorting);
-                if (comparatorDescriptor != null) {
-                    Collections.sort(components, comparatorDescriptor.createInstance());
+        }
+        if (regexpFirstJobs != null) {
+            for (RegExpSpec regexp : regexpFirstJobs) {
+                Map<String, AbstractProject> matches = ProjectUtil.getProjects(regexp.getRegexp());
+                int index = 1;
+                for (Map.Entry<String, AbstractProject> entry : matches.entrySet()) {
+                    addCandidate(candidates, errors, entry.getKey(), entry.getValue(), null, index);
+                    index++;
                 }
             }
-            if (maxNumberOfVisiblePipelines > 0) {
-                LOG.fine("Limiting number of jobs to: " + maxNumberOfVisiblePipelines);
-                components = components.subList(0, Math.min(components.size(), maxNumberOfVisiblePipelines));
+        }
+        ComponentComparator comparator = null;
+        if (getSorting() != null && !getSorting().equals(NONE_SORTER)) {
+            ComponentComparatorDescriptor comparatorDescriptor = ComponentComparator.all().find(sorting);
+            if (comparatorDescriptor != null) {
+                comparator = comparatorDescriptor.createInstance();
             }
-            LOG.fine("Returning: " + components);
-            error = null;
-            return components;
+        }
+        if (comparator != null && maxNumberOfVisiblePipelines > 0
+                && maxNumberOfVisiblePipelines < candidates.size()) {
+            candidates = selectCandidates(candidates, comparator, maxNumberOfVisiblePipelines);
+        }
+        List<Component> components = getComponents(candidates, deadline, errors, pending);
+        if (comparator != null) {
+            Collections.sort(components, comparator);
+        }
+        if (maxNumberOfVisiblePipelines > 0) {
+            LOG.fine("Limiting number of jobs to: " + maxNumberOfVisiblePipelines);
+            components = components.subList(0, Math.min(components.size(), maxNumberOfVisiblePipelines));
+        }
+        if (!pending.isEmpty()) {
+            LOG.fine("Still building: " + pending);
+        }
+        LOG.fine("Returning: " + components);
+        return new PipelinesSnapshot(components, errors.isEmpty() ? null : Joiner.on(", ").join(errors),
+                !pending.isEmpty());
+    }
+
+    private static void addCandidate(List<ComponentCandidate> candidates, List<String> errors, String name,
+                                     AbstractProject firstJob, AbstractProject lastJob, int componentNumber) {
+        try {
+            candidates.add(new ComponentCandidate(name, firstJob, lastJob, componentNumber));
         } catch (PipelineException e) {
-            error = e.getMessage();
-            return new ArrayList<Component>();
+            errors.add(e.getMessage());
         }
     }
 
-    private Component getComponent(String name, AbstractProject firstJob, AbstractProject lastJob,
-                                   boolean showAggregatedPipeline, int componentNumber) throws PipelineException {
-        Pipeline pipeline = Pipeline.extractPipeline(name, firstJob, lastJob);
-        Component component = new Component(name, firstJob.getName(), firstJob.getUrl(), firstJob.isParameterized(),
-                noOfPipelines, pagingEnabled, componentNumber, displayArgumentsFile);
+    /**
+     * Builds the components concurrently and returns them in the order of the candidates. A component that fails is
+     * left out and reported in errors.
+     *
+     * <p>A component that is not done before the deadline keeps being built in the background, and the next request
+     * for it waits for that build instead of starting another one. Until then the last version of the component is
+     * shown, if any, and its name is added to pending. A component built after the deadline turned thin lacks optional
+     * fields, so it is shown but its name is added to pending and it is not kept as the last version.
+     */
+    private List<Component> getComponents(List<ComponentCandidate> candidates, Deadline deadline,
+                                          List<String> errors, List<String> pending) {
+        StaplerRequest req = Stapler.getCurrentRequest();
+        final boolean fullScreenView = isFullScreenView();
+        String identity = getIdentity();
+        Object partition = PermissionPartition.currentKey();
+        List<List<Object>> keys = new ArrayList<List<Object>>();
+        List<Future<BuiltComponent>> futures = new ArrayList<Future<BuiltComponent>>();
+        for (final ComponentCandidate candidate : candidates) {
+            final int currentPage = Component.getCurrentPage(req, candidate.componentNumber);
+            final List<Object> key = Arrays.<Object>asList(identity, partition, candidate.name,
+                    candidate.componentNumber, currentPage, fullScreenView);
+            Future<BuiltComponent> future = RUNNING_COMPONENTS.get(key);
+            if (future == null || future.isDone()) {
+                final Deadline componentDeadline = deadline.fork();
+                future = PipelineExecutors.submitComponent(new Callable<BuiltComponent>() {
+                    @Override
+                    public BuiltComponent call() {
+                        Deadline previous = Deadline.enter(componentDeadline);
+                        try {
+                            Component component = getComponent(candidate, currentPage, fullScreenView);
+                            if (!componentDeadline.wasThin()) {
+                                LAST_COMPONENTS.put(key, component);
+                            }
+                            return new BuiltComponent(component, componentDeadline.wasThin());
+                        } finally {
+                            Deadline.restore(previous);
+                        }
+                    }
+                });
+                RUNNING_COMPONENTS.put(key, future);
+            }
+            keys.add(key);
+            futures.add(future);
+        }
+
+        List<Component> components = new ArrayList<Component>();
+        for (int i = 0; i < futures.size(); i++) {
+            Future<BuiltComponent> future = futures.get(i);
+            List<Object> key = keys.get(i);
+            String name = candidates.get(i).name;
+            try {
+                BuiltComponent built = future.get(deadline.getRemaining(), TimeUnit.MILLISECONDS);
+                RUNNING_COMPONENTS.remove(key, future);
+                components.add(built.component);
+                if (built.thin) {
+                    pending.add(name);
+                }
+            } catch (ExecutionException e) {
+                RUNNING_COMPONENTS.remove(key, future);
+                LOG.log(Level.WARNING, "Could not build component " + name, e.getCause());
+                errors.add("Could not build component " + name + ": " + e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                Component last = LAST_COMPONENTS.getIfPresent(key);
+                if (last != null) {
+                    components.add(last);
+                }
+                pending.add(name);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.addAll(names(candidates.subList(i, candidates.size())));
+                break;
+            }
+        }
+        return components;
+    }
+
+    private static List<String> names(List<ComponentCandidate> candidates) {
+        List<String> names = new ArrayList<String>();
+        for (ComponentCandidate candidate : candidates) {
+            names.add(candidate.name);
+        }
+        return names;
+    }
+
+    /**
+     * Selects the candidates with the lowest sort keys, so that only components that are going to be shown are
+     * built. Candidates with equal keys keep their order, like when all components are built and sorted. Returns all
+     * candidates when the comparator has no sort key.
+     */
+    private static List<ComponentCandidate> selectCandidates(List<ComponentCandidate> candidates,
+                                                             ComponentComparator comparator, int limit) {
+        for (ComponentCandidate candidate : candidates) {
+            candidate.sortKey = comparator.getSortKey(candidate.prototype);
+            if (candidate.sortKey == null) {
+                return candidates;
+            }
+        }
+        return ComponentCandidate.BY_SORT_KEY.compound(Ordering.explicit(candidates)).leastOf(candidates, limit);
+    }
+
+    private Component getComponent(ComponentCandidate candidate, int currentPage, boolean fullScreenView) {
+        Pipeline pipeline = candidate.prototype;
+        AbstractProject firstJob = pipeline.getFirstProject();
+        if (firstJob == null) {
+            throw new IllegalStateException("Could not find project: " + candidate.name);
+        }
+        Component component = new Component(candidate.name, firstJob.getName(), firstJob.getUrl(),
+                firstJob.isParameterized(), noOfPipelines, pagingEnabled, candidate.componentNumber,
+                displayArgumentsFile, currentPage, fullScreenView);
         List<Pipeline> pipelines = new ArrayList<Pipeline>();
         if (showAggregatedPipeline) {
             pipelines.add(pipeline.createPipelineAggregated(getOwnerItemGroup(), showAggregatedChanges));
         }
-        if (isFullScreenView()) {
+        if (fullScreenView) {
             pipelines.addAll(pipeline.createPipelineLatest(noOfPipelines, getOwnerItemGroup(), 
                     false, showChanges, component, maxNoOfPages));
         } else {
@@ -641,37 +916,101 @@ public class DeliveryPipelineView extends View {
         return component;
     }
 
+    /**
+     * The components of the view and the error message from computing them. Snapshots are immutable and shared
+     * between concurrent requests.
+     */
+    private static final class PipelinesSnapshot {
+
+        static final PipelinesSnapshot BUSY = new PipelinesSnapshot(Collections.<Component>emptyList(),
+                "Too many views are being updated, please wait for the next update", true);
+
+        private final List<Component> components;
+        private final String error;
+        private final boolean partial;
+
+        PipelinesSnapshot(List<Component> components, String error, boolean partial) {
+            this.components = ImmutableList.copyOf(components);
+            this.error = error;
+            this.partial = partial;
+        }
+    }
+
+    /**
+     * A built component and whether optional fields were skipped because the deadline turned thin.
+     */
+    private static final class BuiltComponent {
+
+        private final Component component;
+        private final boolean thin;
+
+        BuiltComponent(Component component, boolean thin) {
+            this.component = component;
+            this.thin = thin;
+        }
+    }
+
+    /**
+     * A component of the view whose pipeline has been extracted from the project configuration but not built yet.
+     */
+    private static final class ComponentCandidate {
+
+        static final Ordering<ComponentCandidate> BY_SORT_KEY = Ordering.<SortKey>natural().onResultOf(
+                new Function<ComponentCandidate, SortKey>() {
+                    @Override
+                    public SortKey apply(ComponentCandidate candidate) {
+                        return candidate.sortKey;
+                    }
+                });
+
+        private final String name;
+        private final Pipeline prototype;
+        private final int componentNumber;
+        private SortKey sortKey;
+
+        ComponentCandidate(String name, AbstractProject firstJob, AbstractProject lastJob, int componentNumber)
+                throws PipelineException {
+            this.name = name;
+            this.prototype = Pipeline.extractPipeline(name, firstJob, lastJob);
+            this.componentNumber = componentNumber;
+        }
+    }
+
     @Override
     public Collection<TopLevelItem> getItems() {
         Set<TopLevelItem> jobs = Sets.newHashSet();
+        for (AbstractProject<?, ?> project : getProjects()) {
+            jobs.add((TopLevelItem) project);
+        }
+        return jobs;
+    }
+
+    private Set<AbstractProject<?, ?>> getProjects() {
+        Set<AbstractProject<?, ?>> jobs = Sets.newHashSet();
         addJobsFromComponentSpecs(jobs);
         addRegexpFirstJobs(jobs);
         return jobs;
     }
 
-    private void addJobsFromComponentSpecs(Set<TopLevelItem> jobs) {
+    private void addJobsFromComponentSpecs(Set<AbstractProject<?, ?>> jobs) {
         if (componentSpecs == null) {
             return;
         }
         for (ComponentSpec spec : componentSpecs) {
             AbstractProject first = ProjectUtil.getProject(spec.getFirstJob(), getOwnerItemGroup());
             AbstractProject last = ProjectUtil.getProject(spec.getLastJob(), getOwnerItemGroup());
-            Collection<AbstractProject<?, ?>> downstreamProjects =
-                    ProjectUtil.getAllDownstreamProjects(first, last).values();
-            for (AbstractProject project : downstreamProjects) {
-                jobs.add((TopLevelItem) project);
-            }
+            jobs.addAll(ProjectUtil.getAllDownstreamProjects(first, last).values());
         }
     }
 
-    private void addRegexpFirstJobs(Set<TopLevelItem> jobs) {
+    private void addRegexpFirstJobs(Set<AbstractProject<?, ?>> jobs) {
         if (regexpFirstJobs == null) {
             return;
         }
         for (RegExpSpec spec : regexpFirstJobs) {
             Map<String, AbstractProject> regexpJobs = ProjectUtil.getProjects(spec.getRegexp());
-            for (AbstractProject project : regexpJobs.values()) {
-                jobs.add((TopLevelItem) project);
+            for (AbstractProject<?, ?> project : regexpJobs.values()) {
+                jobs.add(project);
             }
         }
     }
@@ -860,17 +1199,38 @@ public class DeliveryPipelineView extends View {
     @Extension
     public static class ItemListenerImpl extends ItemListener {
 
+        @Override
+        public void onCreated(Item item) {
+            ProjectUtil.invalidateResolvedProjects();
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            ProjectUtil.invalidateResolvedProjects();
+        }
+
+        @Override
+        public void onLoaded() {
+            ProjectUtil.invalidateResolvedProjects();
+        }
+
         @Override
         public void onRenamed(Item item, String oldName, String newName) {
+            ProjectUtil.invalidateResolvedProjects();
             notifyView(item, oldName, newName);
         }
 
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            ProjectUtil.invalidateResolvedProjects();
+        }
+
         @Override
         public void onDeleted(Item item) {
+            ProjectUtil.invalidateResolvedProjects();
             notifyView(item, item.getFullName(), null);
         }
 
-
         private void notifyView(Item item, String oldName, String newName) {
             Collection<View> views = JenkinsUtil.getInstance().getViews();
             for (View view : views) {
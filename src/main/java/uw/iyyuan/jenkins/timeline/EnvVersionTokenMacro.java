@@ -22,6 +22,7 @@ import hudson.model.AbstractBuild;
 import hudson.model.TaskListener;
 import org.jenkinsci.plugins.tokenmacro.DataBoundTokenMacro;
 import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
+import uw.iyyuan.jenkins.timeline.util.BuildUtil;
 
 import java.io.IOException;
 import java.util.Map;
@@ -38,7 +39,7 @@ public class EnvVersionTokenMacro extends DataBoundTokenMacro {
     @Override
     public String evaluate(AbstractBuild<?, ?> context, TaskListener listener, String macroName)
             throws MacroEvaluationException, IOException, InterruptedException {
-        Map<String, String> env = context.getEnvironment(listener);
+        Map<String, String> env = BuildUtil.getEnvironment(context, listener);
         if (env.containsKey(NAME)) {
             if (stripSnapshot) {
                 String version = env.get(NAME);
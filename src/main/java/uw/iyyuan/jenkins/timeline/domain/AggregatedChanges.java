@@ -0,0 +1,172 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.domain;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import uw.iyyuan.jenkins.timeline.util.Deadline;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.CheckForNull;
+
+/**
+ * The aggregated changes between the versions of two consecutive stages, kept per pair of stages.
+ *
+ * <p>The changes of a stage are those of the builds of the first project after the version that reached the next
+ * stage, up to the version of the stage itself. When the versions move, only the builds the boundaries crossed are
+ * added or removed, instead of collecting the changes of the whole range again.
+ */
+public final class AggregatedChanges {
+
+    private static final Cache<AbstractProject<?, ?>, ConcurrentMap<List<String>, Range>> RANGES =
+            CacheBuilder.newBuilder().weakKeys()
+                    .maximumSize(Long.getLong(AggregatedChanges.class.getName() + ".size", 500))
+                    .<AbstractProject<?, ?>, ConcurrentMap<List<String>, Range>>build();
+
+    private AggregatedChanges() {
+    }
+
+    /**
+     * Returns the changes of the builds of the first project from the build up to, but not including, the next
+     * build.
+     *
+     * @param stage the name of the stage
+     * @param nextStage the name of the next stage
+     * @param build the version of the stage, or null if no version reached the stage
+     * @param nextBuild the version of the next stage, or null if no version reached the next stage
+     */
+    static Set<Change> getChanges(AbstractProject<?, ?> firstProject, String stage, String nextStage,
+                                  @CheckForNull AbstractBuild<?, ?> build,
+                                  @CheckForNull AbstractBuild<?, ?> nextBuild) {
+        int to = build != null ? build.getNumber() : 0;
+        // Like walking back from the build: a next build with the same version ends the walk at once, so there are
+        // no changes, while a newer next build is never reached, so the whole history up to the build is included
+        int from = nextBuild != null && nextBuild.getNumber() <= to ? nextBuild.getNumber() : 0;
+        List<String> key = Arrays.asList(stage, nextStage);
+        ConcurrentMap<List<String>, Range> ranges = getRanges(firstProject);
+        Range range = ranges.get(key);
+        if (range == null) {
+            ranges.putIfAbsent(key, new Range());
+            range = ranges.get(key);
+        }
+        synchronized (range) {
+            // Running thin, the changes of the last versions are shown until there is time to move the range
+            if (!Deadline.isThin()) {
+                range.moveTo(firstProject, from, to);
+            }
+            return range.changes;
+        }
+    }
+
+    private static ConcurrentMap<List<String>, Range> getRanges(AbstractProject<?, ?> firstProject) {
+        try {
+            return RANGES.get(firstProject, new Callable<ConcurrentMap<List<String>, Range>>() {
+                @Override
+                public ConcurrentMap<List<String>, Range> call() {
+                    return new ConcurrentHashMap<List<String>, Range>();
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void invalidate(AbstractProject<?, ?> project) {
+        RANGES.invalidate(project);
+    }
+
+    /**
+     * The changes of the builds with numbers after {@code from}, up to and including {@code to}.
+     */
+    private static final class Range {
+        private final Multiset<Change> counts = HashMultiset.create();
+        private Set<Change> changes = ImmutableSet.of();
+        private int from;
+        private int to;
+        // Set when a build in the range was still running, its changes may not be known yet
+        private boolean partial;
+
+        private void moveTo(AbstractProject<?, ?> firstProject, int newFrom, int newTo) {
+            if (newFrom == from && newTo == to && !partial) {
+                return;
+            }
+            if (newTo <= from || newFrom >= to || partial) {
+                // Start over if the ranges do not overlap or a build that was running has been added
+                counts.clear();
+                partial = false;
+                add(firstProject, newFrom, newTo);
+            } else {
+                if (newTo > to) {
+                    add(firstProject, to, newTo);
+                } else {
+                    remove(firstProject, newTo, to);
+                }
+                if (newFrom > from) {
+                    remove(firstProject, from, newFrom);
+                } else {
+                    add(firstProject, newFrom, from);
+                }
+            }
+            from = newFrom;
+            to = newTo;
+            changes = ImmutableSet.copyOf(counts.elementSet());
+        }
+
+        private void add(AbstractProject<?, ?> firstProject, int after, int upTo) {
+            for (AbstractBuild<?, ?> build = firstProject.getNearestOldBuild(upTo);
+                 build != null && build.getNumber() > after; build = build.getPreviousBuild()) {
+                partial |= build.isBuilding();
+                counts.addAll(Change.loadChanges(build));
+            }
+        }
+
+        private void remove(AbstractProject<?, ?> firstProject, int after, int upTo) {
+            for (AbstractBuild<?, ?> build = firstProject.getNearestOldBuild(upTo);
+                 build != null && build.getNumber() > after; build = build.getPreviousBuild()) {
+                for (Change change : Change.loadChanges(build)) {
+                    counts.remove(change);
+                }
+            }
+        }
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run> {
+
+        @Override
+        public void onDeleted(Run run) {
+            if (run instanceof AbstractBuild) {
+                invalidate(((AbstractBuild<?, ?>) run).getProject());
+            }
+        }
+    }
+}
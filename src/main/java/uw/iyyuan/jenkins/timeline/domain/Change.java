@@ -17,15 +17,21 @@ If not, see <http://www.gnu.org/licenses/>.
 */
 package uw.iyyuan.jenkins.timeline.domain;
 
+import com.google.common.base.Function;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
 import hudson.model.AbstractBuild;
 import hudson.scm.ChangeLogSet;
 import hudson.scm.RepositoryBrowser;
 import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
+import uw.iyyuan.jenkins.timeline.util.BuildCache;
+import uw.iyyuan.jenkins.timeline.util.Deadline;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -39,6 +45,16 @@ public class Change {
 
     private static final Logger LOG = Logger.getLogger(Change.class.getName());
 
+    /** Upper bound of the total number of changes held by the cache, each build weighs one plus its changes. */
+    private static final long MAX_CACHED_CHANGES = 20000;
+
+    private static final BuildCache<List<Change>> CACHE = new BuildCache<List<Change>>(MAX_CACHED_CHANGES,
+            new Weigher<AbstractBuild<?, ?>, List<Change>>() {
+                @Override
+                public int weigh(AbstractBuild<?, ?> build, List<Change> changes) {
+                    return 1 + changes.size();
+                }
+            });
 
     public Change(UserInfo author, String message, String commitId, String changeLink) {
         this.author = author;
@@ -86,7 +102,31 @@ public class Change {
         return commitId.hashCode();
     }
 
+    /**
+     * Returns the changes of the build. The changeset of a completed build never changes, so it is resolved once
+     * and then served from a cache.
+     */
     public static List<Change> getChanges(AbstractBuild<?, ?> build) {
+        if (Deadline.isThin()) {
+            List<Change> cached = CACHE.getIfPresent(build);
+            return cached != null ? cached : Collections.<Change>emptyList();
+        }
+        return loadChanges(build);
+    }
+
+    /**
+     * Returns the changes of the build, resolving them even when the view update is running thin.
+     */
+    static List<Change> loadChanges(AbstractBuild<?, ?> build) {
+        return CACHE.get(build, new Function<AbstractBuild<?, ?>, List<Change>>() {
+            @Override
+            public List<Change> apply(AbstractBuild<?, ?> input) {
+                return ImmutableList.copyOf(resolveChanges(input));
+            }
+        });
+    }
+
+    static List<Change> resolveChanges(AbstractBuild<?, ?> build) {
         RepositoryBrowser repositoryBrowser = build.getProject().getScm().getBrowser();
         List<Change> result = new ArrayList<Change>();
         for (ChangeLogSet.Entry entry : build.getChangeSet()) {
@@ -109,6 +149,4 @@ public class Change {
         return result;
     }
 
-
-
 }
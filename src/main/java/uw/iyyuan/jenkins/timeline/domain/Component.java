@@ -47,6 +47,8 @@ public class Component extends AbstractItem {
     private boolean pagingEnabled = false;
     private int totalNoOfPipelines = 0;
     private String displayArgumentsFileContents;
+    private final int currentPage;
+    private final boolean fullScreenView;
 
     public Component(String name, String firstJob, String firstJobUrl, boolean firstJobParameterized,
                      int noOfPipelines, boolean pagingEnabled, int componentNumber) {
@@ -57,10 +59,23 @@ public class Component extends AbstractItem {
         this.noOfPipelines = noOfPipelines;
         this.pagingEnabled = pagingEnabled;
         this.componentNumber = componentNumber;
+        StaplerRequest req = Stapler.getCurrentRequest();
+        this.currentPage = getCurrentPage(req, componentNumber);
+        this.fullScreenView = isFullScreenView(req);
     }
 
     public Component(String name, String firstJob, String firstJobUrl, boolean firstJobParameterized,
                      int noOfPipelines, boolean pagingEnabled, int componentNumber, String displayArgumentsFile) {
+        this(name, firstJob, firstJobUrl, firstJobParameterized, noOfPipelines, pagingEnabled, componentNumber);
+        this.displayArgumentsFileContents = readDisplayArgumentsFile(displayArgumentsFile);
+    }
+
+    /**
+     * Creates a component with the paging state of a request, for components built outside the request thread.
+     */
+    public Component(String name, String firstJob, String firstJobUrl, boolean firstJobParameterized,
+                     int noOfPipelines, boolean pagingEnabled, int componentNumber, String displayArgumentsFile,
+                     int currentPage, boolean fullScreenView) {
         super(name);
         this.firstJob = firstJob;
         this.firstJobUrl = firstJobUrl;
@@ -69,6 +84,8 @@ public class Component extends AbstractItem {
         this.pagingEnabled = pagingEnabled;
         this.componentNumber = componentNumber;
         this.displayArgumentsFileContents = readDisplayArgumentsFile(displayArgumentsFile);
+        this.currentPage = currentPage;
+        this.fullScreenView = fullScreenView;
     }
 
     @Exported
@@ -76,6 +93,10 @@ public class Component extends AbstractItem {
         return pipelines;
     }
 
+    /**
+     * Sets the pipelines of the component. Components are built on one thread and only shared once complete, through
+     * the executor that built them, so this must not be called after the component has been returned from a view.
+     */
     public void setPipelines(List<Pipeline> pipelines) {
         this.pipelines = ImmutableList.copyOf(pipelines);
     }
@@ -122,7 +143,17 @@ public class Component extends AbstractItem {
     }
 
     public int getCurrentPage() {
-        StaplerRequest req = Stapler.getCurrentRequest();
+        return currentPage;
+    }
+
+    public boolean isFullScreenView() {
+        return fullScreenView;
+    }
+
+    /**
+     * Returns the page of the component requested, 1 if the request is for another component.
+     */
+    public static int getCurrentPage(StaplerRequest req, int componentNumber) {
         int page = req == null ? 1 : req.getParameter("page") == null ? 1 :
                 Integer.parseInt(req.getParameter("page").toString());
         page = Math.max(page, 1);
@@ -134,8 +165,7 @@ public class Component extends AbstractItem {
         return page;
     }
 
-    public boolean isFullScreenView() {
-        StaplerRequest req = Stapler.getCurrentRequest();
+    public static boolean isFullScreenView(StaplerRequest req) {
         return req == null ? false : req.getParameter("fullscreen") == null ? false :
                 Boolean.parseBoolean(req.getParameter("fullscreen"));
     }
@@ -145,7 +175,7 @@ public class Component extends AbstractItem {
         return componentNumber;
     }
 
-    public void setTotalNoOfPipelines(int totalNoOfPipelines) {
+    void setTotalNoOfPipelines(int totalNoOfPipelines) {
         this.totalNoOfPipelines = totalNoOfPipelines;
     }
 
@@ -154,7 +184,7 @@ public class Component extends AbstractItem {
         return displayArgumentsFileContents;
     }
 
-    public void setDisplayArgumentsFileContents(String displayArgumentsFileContents) {
+    void setDisplayArgumentsFileContents(String displayArgumentsFileContents) {
         this.displayArgumentsFileContents = displayArgumentsFileContents;
     }
 
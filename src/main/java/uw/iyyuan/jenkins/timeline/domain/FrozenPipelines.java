@@ -0,0 +1,229 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.domain;
+
+import com.google.common.base.Function;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Cause;
+import hudson.model.Item;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.model.queue.QueueListener;
+import hudson.security.ACL;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import uw.iyyuan.jenkins.timeline.domain.status.Status;
+import uw.iyyuan.jenkins.timeline.domain.task.Task;
+import uw.iyyuan.jenkins.timeline.util.BuildCache;
+import uw.iyyuan.jenkins.timeline.util.BuildUtil;
+import uw.iyyuan.jenkins.timeline.util.Deadline;
+import uw.iyyuan.jenkins.timeline.util.JenkinsUtil;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.CheckForNull;
+
+/**
+ * Archive of finished pipeline instances, keyed by the first build of the instance.
+ *
+ * <p>An instance is finished when none of its tasks is queued or running, and tasks that were never triggered have
+ * stayed idle for longer than the grace period. The rendering of such an instance only changes when one of its
+ * builds is triggered again, rebuilt, edited or deleted, or when a job is changed, so it is reused until then instead
+ * of matching every task against the build history again.
+ */
+public final class FrozenPipelines {
+
+    static final long GRACE = Long.getLong(FrozenPipelines.class.getName() + ".grace", 600000);
+
+    private static final int MAX_UPSTREAM_DEPTH = 50;
+
+    private static final BuildCache<ConcurrentMap<List<Object>, Pipeline>> ARCHIVE =
+            new BuildCache<ConcurrentMap<List<Object>, Pipeline>>(
+                    Long.getLong(FrozenPipelines.class.getName() + ".size", 1000));
+
+    private static final Function<AbstractBuild<?, ?>, ConcurrentMap<List<Object>, Pipeline>> NEW_ENTRY =
+            new Function<AbstractBuild<?, ?>, ConcurrentMap<List<Object>, Pipeline>>() {
+                @Override
+                public ConcurrentMap<List<Object>, Pipeline> apply(AbstractBuild<?, ?> input) {
+                    return new ConcurrentHashMap<List<Object>, Pipeline>();
+                }
+            };
+
+    private FrozenPipelines() {
+    }
+
+    /**
+     * Returns the archived instance started by the first build.
+     *
+     * @param firstBuild the first build of the instance
+     * @param key identifies the pipeline prototype and the options the instance was created with
+     * @return the instance, or null if it is not archived
+     */
+    @CheckForNull
+    static Pipeline get(AbstractBuild<?, ?> firstBuild, List<Object> key) {
+        ConcurrentMap<List<Object>, Pipeline> instances = ARCHIVE.getIfPresent(firstBuild);
+        return instances != null ? instances.get(key) : null;
+    }
+
+    /**
+     * Archives the instance started by the first build, if it is finished. Instances created while a view update
+     * is running out of time may be incomplete and are never archived.
+     */
+    static void put(AbstractBuild<?, ?> firstBuild, List<Object> key, Pipeline pipeline) {
+        if (!Deadline.isThin() && isFinished(firstBuild, pipeline, System.currentTimeMillis())) {
+            ARCHIVE.get(firstBuild, NEW_ENTRY).put(key, pipeline);
+        }
+    }
+
+    static boolean isFinished(AbstractBuild<?, ?> firstBuild, Pipeline pipeline, long now) {
+        if (firstBuild.isBuilding()) {
+            return false;
+        }
+        long lastActivity = firstBuild.getTimeInMillis() + firstBuild.getDuration();
+        boolean idle = false;
+        for (Stage stage : pipeline.getStages()) {
+            for (Task task : stage.getTasks()) {
+                Status status = task.getStatus();
+                if (status.isIdle() || status.isDisabled()) {
+                    idle = true;
+                } else if (status.isQueued() || status.isRunning()) {
+                    return false;
+                } else {
+                    lastActivity = Math.max(lastActivity, status.getLastActivity() + status.getDuration());
+                }
+            }
+            if (stage.getPreviousTasks() != null) {
+                for (Task task : stage.getPreviousTasks()) {
+                    if (task.getStatus().isQueued() || task.getStatus().isRunning()) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return !idle || now - lastActivity > GRACE;
+    }
+
+    /**
+     * Drops the archived instances of the build and of all builds upstream of it. Upstream builds are looked up as
+     * the system, since the archive is shared by all users.
+     */
+    static void invalidate(@CheckForNull AbstractBuild<?, ?> build) {
+        SecurityContext previous = ACL.impersonate(ACL.SYSTEM);
+        try {
+            AbstractBuild<?, ?> current = build;
+            for (int i = 0; current != null && i < MAX_UPSTREAM_DEPTH; i++) {
+                ARCHIVE.invalidate(current);
+                current = BuildUtil.getUpstreamBuild(current);
+            }
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    /**
+     * Drops the archived instances of the upstream builds among the causes.
+     */
+    static void invalidate(List<Cause> causes) {
+        SecurityContext previous = ACL.impersonate(ACL.SYSTEM);
+        try {
+            for (Cause cause : causes) {
+                if (cause instanceof Cause.UpstreamCause) {
+                    Cause.UpstreamCause upstreamCause = (Cause.UpstreamCause) cause;
+                    AbstractProject<?, ?> upstreamProject = JenkinsUtil.getInstance().getItemByFullName(
+                            upstreamCause.getUpstreamProject(), AbstractProject.class);
+                    if (upstreamProject != null) {
+                        invalidate(upstreamProject.getBuildByNumber(upstreamCause.getUpstreamBuild()));
+                    }
+                }
+            }
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    static void invalidateAll() {
+        ARCHIVE.invalidateAll();
+    }
+
+    static long size() {
+        return ARCHIVE.size();
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run> {
+
+        @Override
+        public void onStarted(Run run, TaskListener listener) {
+            if (run instanceof AbstractBuild) {
+                invalidate((AbstractBuild<?, ?>) run);
+            }
+        }
+
+        @Override
+        public void onDeleted(Run run) {
+            if (run instanceof AbstractBuild) {
+                invalidate((AbstractBuild<?, ?>) run);
+            }
+        }
+    }
+
+    @Extension
+    public static class QueueListenerImpl extends QueueListener {
+
+        @Override
+        public void onEnterWaiting(Queue.WaitingItem item) {
+            invalidate(item.getCauses());
+        }
+    }
+
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Item) {
+                invalidateAll();
+            } else if (o instanceof AbstractBuild) {
+                invalidate((AbstractBuild<?, ?>) o);
+            }
+        }
+    }
+
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onRenamed(Item item, String oldName, String newName) {
+            invalidateAll();
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            invalidateAll();
+        }
+    }
+}
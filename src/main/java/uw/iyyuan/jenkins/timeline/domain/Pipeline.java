@@ -19,30 +19,41 @@ package uw.iyyuan.jenkins.timeline.domain;
 
 import static com.google.common.base.Objects.toStringHelper;
 import static com.google.common.collect.Lists.newArrayList;
-import static com.google.common.collect.Sets.newHashSet;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.ItemGroup;
+import hudson.model.Queue;
 import hudson.model.Result;
 import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
 import uw.iyyuan.jenkins.timeline.domain.task.Task;
+import uw.iyyuan.jenkins.timeline.util.JenkinsUtil;
+import uw.iyyuan.jenkins.timeline.util.PermissionPartition;
+import uw.iyyuan.jenkins.timeline.util.PipelineExecutors;
 import uw.iyyuan.jenkins.timeline.util.PipelineUtils;
+import uw.iyyuan.jenkins.timeline.util.ProjectUtil;
+import uw.iyyuan.jenkins.timeline.util.QueueSnapshot;
+import uw.iyyuan.jenkins.timeline.util.SearchHorizon;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import javax.annotation.CheckForNull;
 
 @ExportedBean(defaultVisibility = AbstractItem.VISIBILITY)
 public class Pipeline extends AbstractItem {
 
-    private final AbstractProject firstProject;
-    private final AbstractProject lastProject;
+    // Projects are held by name and looked up while computing, so cached pipelines never pin a project in memory
+    private final String firstProjectName;
+    private final String lastProjectName;
 
     private final List<Stage> stages;
 
@@ -63,12 +74,12 @@ public class Pipeline extends AbstractItem {
 
     private long pipelineBuildTime;
 
-    private Map<String, Task> allTasks = null;
+    private volatile Map<String, Task> allTasks = null;
 
     public Pipeline(String name, AbstractProject firstProject, AbstractProject lastProject, List<Stage> stages) {
         super(name);
-        this.firstProject = firstProject;
-        this.lastProject = lastProject;
+        this.firstProjectName = getFullName(firstProject);
+        this.lastProjectName = getFullName(lastProject);
         this.stages = stages;
     }
 
@@ -82,8 +93,8 @@ public class Pipeline extends AbstractItem {
                     List<Stage> stages,
                     boolean aggregated) {
         super(name);
-        this.firstProject = firstProject;
-        this.lastProject = lastProject;
+        this.firstProjectName = getFullName(firstProject);
+        this.lastProjectName = getFullName(lastProject);
         this.version = version;
         this.triggeredBy = triggeredBy;
         this.contributors = contributors;
@@ -92,12 +103,33 @@ public class Pipeline extends AbstractItem {
         this.timestamp = timestamp;
     }
 
+    /**
+     * Looks up the first project of the pipeline.
+     *
+     * @return the project, or null if it no longer exists or is not visible to the current user
+     */
+    @CheckForNull
     public AbstractProject getFirstProject() {
-        return this.firstProject;
+        return getProject(firstProjectName);
     }
 
+    /**
+     * Looks up the last project of the pipeline.
+     *
+     * @return the project, or null if the pipeline has no last project, or it no longer exists or is not visible
+     *     to the current user
+     */
+    @CheckForNull
     public AbstractProject getLastProject() {
-        return this.lastProject;
+        return getProject(lastProjectName);
+    }
+
+    private static String getFullName(AbstractProject project) {
+        return project != null ? project.getFullName() : null;
+    }
+
+    private static AbstractProject getProject(String name) {
+        return name != null ? ProjectUtil.getProject(name, JenkinsUtil.getInstance()) : null;
     }
 
     @Exported
@@ -130,7 +162,7 @@ public class Pipeline extends AbstractItem {
         return hashCode();
     }
 
-    public void setChanges(List<Change> changes) {
+    void setChanges(List<Change> changes) {
         this.changes = changes;
     }
 
@@ -139,7 +171,7 @@ public class Pipeline extends AbstractItem {
         return changes;
     }
 
-    public void setCommits(int commits) {
+    void setCommits(int commits) {
         this.commits = commits;
     }
 
@@ -246,15 +278,18 @@ public class Pipeline extends AbstractItem {
     }
 
     private Task getTaskFromName(String taskName) {
-        if (allTasks == null) {
-            allTasks = new HashMap<String, Task>();
+        Map<String, Task> tasks = allTasks;
+        if (tasks == null) {
+            Map<String, Task> tasksById = new HashMap<String, Task>();
             for (Stage stage : stages) {
                 for (Task task : stage.getTasks()) {
-                    allTasks.put(task.getId(), task);
+                    tasksById.put(task.getId(), task);
                 }
             }
+            tasks = ImmutableMap.copyOf(tasksById);
+            allTasks = tasks;
         }
-        return allTasks.get(taskName);
+        return tasks.get(taskName);
     }
 
     /**
@@ -279,34 +314,30 @@ public class Pipeline extends AbstractItem {
     }
 
     public Pipeline createPipelineAggregated(ItemGroup context, boolean showAggregatedChanges) {
+        AbstractProject firstProject = getFirstProject();
         List<Stage> pipelineStages = new ArrayList<Stage>();
         for (Stage stage : getStages()) {
             pipelineStages.add(stage.createAggregatedStage(context, firstProject));
         }
 
         if (showAggregatedChanges) {
-            setAggregatedChanges(context, pipelineStages);
+            setAggregatedChanges(context, pipelineStages, firstProject);
         }
 
-        return new Pipeline(getName(), firstProject, lastProject, null, null, null, null, pipelineStages, true);
+        return new Pipeline(getName(), firstProject, getLastProject(), null, null, null, null, pipelineStages, true);
     }
 
-    void setAggregatedChanges(ItemGroup context, List<Stage> pipelineStages) {
+    void setAggregatedChanges(ItemGroup context, List<Stage> pipelineStages, AbstractProject firstProject) {
         // We use size() - 1 because last stage's changelog can't be calculated against next stage (no such)
         for (int i = 0; i < pipelineStages.size() - 1; i++) {
             Stage stage = pipelineStages.get(i);
             Stage nextStage = pipelineStages.get(i + 1);
 
-            final AbstractBuild nextBuild = nextStage.getHighestBuild(firstProject, context, Result.SUCCESS);
-
-            Set<Change> changes = newHashSet();
+            AbstractBuild nextBuild = nextStage.getHighestBuild(firstProject, context, Result.SUCCESS);
 
             AbstractBuild build = stage.getHighestBuild(firstProject, context, Result.SUCCESS);
-            for (; build != null && build != nextBuild; build = build.getPreviousBuild()) {
-                changes.addAll(Change.getChanges(build));
-            }
-
-            stage.setChanges(changes);
+            stage.setChanges(AggregatedChanges.getChanges(firstProject, stage.getName(), nextStage.getName(), build,
+                    nextBuild));
         }
     }
 
@@ -329,15 +360,21 @@ public class Pipeline extends AbstractItem {
      * @param noOfPipelines number of pipeline instances
      */
     public List<Pipeline> createPipelineLatest(int noOfPipelines,
-                                               ItemGroup context,
+                                               final ItemGroup context,
                                                boolean pagingEnabled,
-                                               boolean showChanges,
+                                               final boolean showChanges,
                                                Component component,
                                                int maxNumOfPages) {
         List<Pipeline> result = new ArrayList<Pipeline>();
+        final AbstractProject firstProject = getFirstProject();
+        final AbstractProject lastProject = getLastProject();
+        if (firstProject == null) {
+            return result;
+        }
         int no = noOfPipelines;
-        if (firstProject.isInQueue()) {
-            String pipeLineTimestamp = PipelineUtils.timestampToString(firstProject.getQueueItem().getInQueueSince());
+        Queue.Item queued = QueueSnapshot.get().getItem(firstProject);
+        if (queued != null) {
+            String pipeLineTimestamp = PipelineUtils.timestampToString(queued.getInQueueSince());
             List<Stage> pipelineStages = new ArrayList<Stage>();
             for (Stage stage : getStages()) {
                 pipelineStages.add(stage.createLatestStage(context, null));
@@ -360,29 +397,69 @@ public class Pipeline extends AbstractItem {
                     noOfPipelines);
         }
 
+        final List<Object> frozenKey = getFrozenKey(showChanges);
+        List<Callable<Pipeline>> instances = new ArrayList<Callable<Pipeline>>();
         Iterator it = firstProject.getBuilds().listIterator(startIndex);
         for (int i = startIndex; i < (startIndex + retrieveSize) && it.hasNext(); i++) {
-            AbstractBuild firstBuild = (AbstractBuild) it.next();
-            List<Change> pipelineChanges = Change.getChanges(firstBuild);
-            Set<UserInfo> contributors = showChanges ? UserInfo.getContributors(pipelineChanges) : null;
+            final AbstractBuild firstBuild = (AbstractBuild) it.next();
+            instances.add(new Callable<Pipeline>() {
+                @Override
+                public Pipeline call() {
+                    Pipeline frozen = FrozenPipelines.get(firstBuild, frozenKey);
+                    if (frozen != null) {
+                        return frozen;
+                    }
+                    Pipeline instance = createPipelineInstance(firstProject, lastProject, firstBuild, context,
+                            showChanges);
+                    FrozenPipelines.put(firstBuild, frozenKey, instance);
+                    return instance;
+                }
+            });
+        }
+        result.addAll(PipelineExecutors.invokeInstances(instances));
+        return result;
+    }
 
-            String pipeLineTimestamp = PipelineUtils.timestampToString(firstBuild.getTimeInMillis());
-            List<Stage> pipelineStages = new ArrayList<Stage>();
-            for (Stage stage : getStages()) {
-                pipelineStages.add(stage.createLatestStage(context, firstBuild));
-            }
-            Pipeline pipelineLatest = new Pipeline(getName(), firstProject, lastProject, firstBuild.getDisplayName(),
-                    pipeLineTimestamp, TriggerCause.getTriggeredBy(firstProject, firstBuild),
-                    contributors, pipelineStages, false);
-            if (showChanges) {
-                pipelineLatest.setChanges(pipelineChanges);
+    /**
+     * Identifies the instances of this prototype in the archive of finished instances. Manual steps depend on which
+     * upstream projects the user may read, so instances are archived per {@link PermissionPartition}.
+     */
+    private List<Object> getFrozenKey(boolean showChanges) {
+        List<String> layout = new ArrayList<String>();
+        for (Stage stage : getStages()) {
+            layout.add(stage.getName());
+            for (Task task : stage.getTasks()) {
+                layout.add(task.getId());
             }
-            pipelineLatest.setCommits(pipelineChanges.size());
-            // pipelineLatest.calculateTotalBuildTime();
-            pipelineLatest.calculatePipelineBuildTime();
-            result.add(pipelineLatest);
         }
-        return result;
+        return Arrays.<Object>asList(getName(), lastProjectName, layout, showChanges, SearchHorizon.current(),
+                PermissionPartition.currentKey());
+    }
+
+    /**
+     * Creates the pipeline instance started by the first build. Instances are created concurrently and only read
+     * the stages and tasks of this prototype.
+     */
+    private Pipeline createPipelineInstance(AbstractProject firstProject, AbstractProject lastProject,
+                                            AbstractBuild firstBuild, ItemGroup context, boolean showChanges) {
+        List<Change> pipelineChanges = Change.getChanges(firstBuild);
+        Set<UserInfo> contributors = showChanges ? UserInfo.getContributors(pipelineChanges) : null;
+
+        String pipeLineTimestamp = PipelineUtils.timestampToString(firstBuild.getTimeInMillis());
+        List<Stage> pipelineStages = new ArrayList<Stage>();
+        for (Stage stage : getStages()) {
+            pipelineStages.add(stage.createLatestStage(context, firstBuild));
+        }
+        Pipeline pipelineLatest = new Pipeline(getName(), firstProject, lastProject, firstBuild.getDisplayName(),
+                pipeLineTimestamp, TriggerCause.getTriggeredBy(firstProject, firstBuild),
+                contributors, pipelineStages, false);
+        if (showChanges) {
+            pipelineLatest.setChanges(pipelineChanges);
+        }
+        pipelineLatest.setCommits(pipelineChanges.size());
+        // pipelineLatest.calculateTotalBuildTime();
+        pipelineLatest.calculatePipelineBuildTime();
+        return pipelineLatest;
     }
 
     @Override
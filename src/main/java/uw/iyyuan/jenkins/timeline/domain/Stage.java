@@ -47,7 +47,6 @@ import hudson.tasks.BuildStep;
 import hudson.tasks.BuildTrigger;
 import hudson.tasks.Publisher;
 import hudson.util.DescribableList;
-import hudson.util.RunList;
 import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.conditionalbuildstep.ConditionalBuildStepHelper;
 import org.jenkinsci.plugins.conditionalbuildstep.ConditionalBuilder;
@@ -60,9 +59,9 @@ import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
 import uw.iyyuan.jenkins.timeline.PipelineProperty;
 import uw.iyyuan.jenkins.timeline.domain.task.Task;
-import uw.iyyuan.jenkins.timeline.util.BuildUtil;
 import uw.iyyuan.jenkins.timeline.util.PipelineUtils;
 import uw.iyyuan.jenkins.timeline.util.ProjectUtil;
+import uw.iyyuan.jenkins.timeline.util.UpstreamVersions;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -81,81 +80,41 @@ import javax.annotation.CheckForNull;
 @ExportedBean(defaultVisibility = AbstractItem.VISIBILITY)
 public class Stage extends AbstractItem {
     private final List<Task> tasks;
-    private List<Task> previousTasks;
-
-    private String version;
-    private int row;
-    private int column;
-    private Map<String, List<String>> taskConnections;
-    private List<String> downstreamStages;
-    private List<Long> downstreamStageIds;
-    private final long id;
-    private Set<Change> changes = new HashSet<Change>();
-    private List<String> blockingJobs;
-    private List<String> conditionalJobs;
-    private List<String> downstreamJobs;
-    private List<String> promotionCriteriaJobs;
-    private List<String> promotionTriggerJobs;
-    private List<Map<String, String>> blockingCriteria;
-
-    // Used for mapping of stages
-    private int nextBlockingColumn = -1;
+    private final List<Task> previousTasks;
+    private final String version;
+    private final Layout layout;
+    private Set<Change> changes = Collections.emptySet();
 
     public Stage(String name, List<Task> tasks) {
         super(name);
         this.tasks = ImmutableList.copyOf(tasks);
-        this.id = PipelineUtils.getRandom();
+        this.previousTasks = null;
+        this.version = null;
+        this.layout = new Layout(PipelineUtils.getRandom());
     }
 
     public Stage(String name, List<Task> tasks, List<String> blockingJobs, List<String> conditionalJobs,
                  List<String> downstreamJobs, List<String> promotionCriteriaJobs, List<String> promotionTriggerJobs,
                  List<Map<String, String>> blockingCriteria) {
-        super(name);
-        this.tasks = ImmutableList.copyOf(tasks);
-        this.id = PipelineUtils.getRandom();
-        this.blockingJobs = blockingJobs;
-        this.conditionalJobs = conditionalJobs;
-        this.downstreamJobs = downstreamJobs;
-        this.promotionCriteriaJobs = promotionCriteriaJobs;
-        this.promotionTriggerJobs = promotionTriggerJobs;
-        this.blockingCriteria = blockingCriteria;
-    }
-
-    private Stage(Stage stage, List<Task> tasks, String version, long id) {
-        this(stage.getName(), tasks, new ArrayList<Task>(), stage.getDownstreamStages(), stage.getDownstreamStageIds(),
-             stage.getTaskConnections(), version, stage.getRow(), stage.getColumn(), id, stage.getBlockingJobs(),
-             stage.getConditionalJobs(), stage.getDownstreamJobs(), stage.getPromotionCriteriaJobs(),
-             stage.getPromotionTriggerJobs(), stage.getBlockingCriteria());
-    }
-
-    private Stage(Stage stage, List<Task> tasks, List<Task> previousTasks, String version, long id) {
-        this(stage.getName(), tasks, previousTasks, stage.getDownstreamStages(), stage.getDownstreamStageIds(),
-             stage.getTaskConnections(), version, stage.getRow(), stage.getColumn(), id, stage.getBlockingJobs(),
-             stage.getConditionalJobs(), stage.getDownstreamJobs(), stage.getPromotionCriteriaJobs(),
-             stage.getPromotionTriggerJobs(), stage.getBlockingCriteria());
-    }
-
-    private Stage(String name, List<Task> tasks, List<Task> previousTasks, List<String> downstreamStages,
-                  List<Long> downstreamStageIds, Map<String, List<String>> taskConnections, String version, int row,
-                  int column, long id, List<String> blockingJobs, List<String> conditionalJobs, 
-                  List<String> downstreamJobs, List<String> promotionCriteriaJobs, List<String> promotionTriggerJobs,
-                  List<Map<String, String>> blockingCriteria) {
-        super(name);
+        this(name, tasks);
+        layout.blockingJobs = blockingJobs;
+        layout.conditionalJobs = conditionalJobs;
+        layout.downstreamJobs = downstreamJobs;
+        layout.promotionCriteriaJobs = promotionCriteriaJobs;
+        layout.promotionTriggerJobs = promotionTriggerJobs;
+        layout.blockingCriteria = blockingCriteria;
+    }
+
+    /**
+     * Creates an instance of the prototype stage. The instance shares the layout of the prototype and only holds
+     * the state of the builds it shows.
+     */
+    private Stage(Stage prototype, List<Task> tasks, List<Task> previousTasks, String version) {
+        super(prototype.getName());
         this.tasks = tasks;
         this.previousTasks = previousTasks;
         this.version = version;
-        this.row = row;
-        this.column = column;
-        this.downstreamStages = downstreamStages;
-        this.taskConnections = taskConnections;
-        this.downstreamStageIds = downstreamStageIds;
-        this.id = id;
-        this.blockingJobs = blockingJobs;
-        this.conditionalJobs = conditionalJobs;
-        this.downstreamJobs = downstreamJobs;
-        this.promotionCriteriaJobs = promotionCriteriaJobs;
-        this.promotionTriggerJobs = promotionTriggerJobs;
-        this.blockingCriteria = blockingCriteria;
+        this.layout = prototype.layout;
     }
 
     @Exported
@@ -175,48 +134,48 @@ public class Stage extends AbstractItem {
 
     @Exported
     public int getRow() {
-        return row;
+        return layout.row;
     }
 
-    public void setRow(int row) {
-        this.row = row;
+    void setRow(int row) {
+        layout.row = row;
     }
 
     @Exported
     public int getColumn() {
-        return column;
+        return layout.column;
     }
 
-    public void setColumn(int column) {
-        this.column = column;
+    void setColumn(int column) {
+        layout.column = column;
     }
 
     @Exported
     public List<String> getDownstreamStages() {
-        return downstreamStages;
+        return layout.downstreamStages;
     }
 
-    public void setDownstreamStages(List<String> downstreamStages) {
-        this.downstreamStages = downstreamStages;
+    void setDownstreamStages(List<String> downstreamStages) {
+        layout.downstreamStages = downstreamStages;
     }
 
     @Exported
     public Map<String, List<String>> getTaskConnections() {
-        return taskConnections;
+        return layout.taskConnections;
     }
 
     @Exported
     public long getId() {
-        return id;
+        return layout.id;
     }
 
     @Exported
     public List<Long> getDownstreamStageIds() {
-        return downstreamStageIds;
+        return layout.downstreamStageIds;
     }
 
-    public void setDownstreamStageIds(List<Long> downstreamStageIds) {
-        this.downstreamStageIds = downstreamStageIds;
+    void setDownstreamStageIds(List<Long> downstreamStageIds) {
+        layout.downstreamStageIds = downstreamStageIds;
     }
 
     @Exported
@@ -224,74 +183,74 @@ public class Stage extends AbstractItem {
         return changes;
     }
 
-    public void setChanges(Set<Change> changes) {
+    void setChanges(Set<Change> changes) {
         this.changes = changes;
     }
 
     @Exported
     public List<String> getBlockingJobs() {
-        return blockingJobs;
+        return layout.blockingJobs;
     }
 
-    public void setBlockingJobs(List<String> blockingJobs) {
-        this.blockingJobs = blockingJobs;
+    void setBlockingJobs(List<String> blockingJobs) {
+        layout.blockingJobs = blockingJobs;
     }
 
     @Exported
     public List<String> getConditionalJobs() {
-        return conditionalJobs;
+        return layout.conditionalJobs;
     }
 
-    public void setConditionalJobs(List<String> conditionalJobs) {
-        this.conditionalJobs = conditionalJobs;
+    void setConditionalJobs(List<String> conditionalJobs) {
+        layout.conditionalJobs = conditionalJobs;
     }
 
     @Exported
     public List<String> getDownstreamJobs() {
-        return downstreamJobs;
+        return layout.downstreamJobs;
     }
 
-    public void setDownstreamJobs(List<String> downstreamJobs) {
-        this.downstreamJobs = downstreamJobs;
+    void setDownstreamJobs(List<String> downstreamJobs) {
+        layout.downstreamJobs = downstreamJobs;
     }
 
     @Exported
     public List<String> getPromotionCriteriaJobs() {
-        return promotionCriteriaJobs;
+        return layout.promotionCriteriaJobs;
     }
 
-    public void setPromotionCriteriaJobs(List<String> promotionCriteriaJobs) {
-        this.promotionCriteriaJobs = promotionCriteriaJobs;
+    void setPromotionCriteriaJobs(List<String> promotionCriteriaJobs) {
+        layout.promotionCriteriaJobs = promotionCriteriaJobs;
     }
 
     @Exported
     public List<String> getPromotionTriggerJobs() {
-        return promotionTriggerJobs;
+        return layout.promotionTriggerJobs;
     }
 
-    public void setPromotionTriggerJobs(List<String> promotionTriggerJobs) {
-        this.promotionTriggerJobs = promotionTriggerJobs;
+    void setPromotionTriggerJobs(List<String> promotionTriggerJobs) {
+        layout.promotionTriggerJobs = promotionTriggerJobs;
     }
 
     @Exported
     public List<Map<String, String>> getBlockingCriteria() {
-        return blockingCriteria;
+        return layout.blockingCriteria;
     }
 
-    public void setBlockingCriteria(List<Map<String, String>> blockingCriteria) {
-        this.blockingCriteria = blockingCriteria;
+    void setBlockingCriteria(List<Map<String, String>> blockingCriteria) {
+        layout.blockingCriteria = blockingCriteria;
     }
 
     public int getNextBlockingColumn() {
-        return nextBlockingColumn;
+        return layout.nextBlockingColumn;
     }
 
-    public void setNextBlockingColumn(int nextBlockingColumn) {
-        this.nextBlockingColumn = nextBlockingColumn;
+    void setNextBlockingColumn(int nextBlockingColumn) {
+        layout.nextBlockingColumn = nextBlockingColumn;
     }
 
-    public void setTaskConnections(Map<String, List<String>> taskConnections) {
-        this.taskConnections = taskConnections;
+    void setTaskConnections(Map<String, List<String>> taskConnections) {
+        layout.taskConnections = taskConnections;
     }
 
     public static Stage getPrototypeStage(String name, List<Task> tasks) {
@@ -468,7 +427,7 @@ public class Stage extends AbstractItem {
         for (Task task : getTasks()) {
             stageTasks.add(task.getAggregatedTask(versionBuild, context));
         }
-        return new Stage(this, stageTasks, stageVersion, id);
+        return new Stage(this, stageTasks, Collections.<Task>emptyList(), stageVersion);
     }
 
     public Stage createLatestStage(ItemGroup context, AbstractBuild firstBuild) {
@@ -486,7 +445,7 @@ public class Stage extends AbstractItem {
             }
 
         }
-        return new Stage(this, stageTasks, previousStageTasks, null, id);
+        return new Stage(this, stageTasks, previousStageTasks, null);
     }
 
     public static List<Stage> placeStages(AbstractProject firstProject, Collection<Stage> stages)
@@ -955,12 +914,16 @@ public class Stage extends AbstractItem {
 
     @CheckForNull
     public AbstractBuild getHighestBuild(AbstractProject firstProject, ItemGroup context, Result minResult) {
+        UpstreamVersions versions = UpstreamVersions.get();
         int highest = -1;
         for (Task task : getTasks()) {
             AbstractProject project = ProjectUtil.getProject(task.getId(), context);
-            AbstractBuild firstBuild = getFirstUpstreamBuild(project, firstProject, minResult);
-            if (firstBuild != null && firstBuild.getNumber() > highest) {
-                highest = firstBuild.getNumber();
+            if (project == null) {
+                continue;
+            }
+            int firstBuild = versions.getFirstUpstream(project, firstProject, minResult);
+            if (firstBuild > highest) {
+                highest = firstBuild;
             }
         }
 
@@ -971,21 +934,29 @@ public class Stage extends AbstractItem {
         }
     }
 
-    @CheckForNull
-    private AbstractBuild getFirstUpstreamBuild(AbstractProject<?, ?> project, AbstractProject<?, ?> first,
-                                                Result minResult) {
-        RunList<? extends AbstractBuild> builds = project.getBuilds();
-        for (AbstractBuild build : builds) {
-            if (minResult != null && (build.isBuilding() || build.getResult().isWorseThan(minResult))) {
-                continue;
-            }
-
-            AbstractBuild upstream = BuildUtil.getFirstUpstreamBuild(build, first);
-            if (upstream != null && upstream.getProject().equals(first)) {
-                return upstream;
-            }
+    /**
+     * Placement and job relations of a stage. Resolved once for the prototype stage and shared by all instances
+     * created from it.
+     */
+    private static final class Layout {
+        private final long id;
+        private int row;
+        private int column;
+        private Map<String, List<String>> taskConnections;
+        private List<String> downstreamStages;
+        private List<Long> downstreamStageIds;
+        private List<String> blockingJobs;
+        private List<String> conditionalJobs;
+        private List<String> downstreamJobs;
+        private List<String> promotionCriteriaJobs;
+        private List<String> promotionTriggerJobs;
+        private List<Map<String, String>> blockingCriteria;
+        // Used for mapping of stages
+        private int nextBlockingColumn = -1;
+
+        private Layout(long id) {
+            this.id = id;
         }
-        return null;
     }
 
     @Override
@@ -17,17 +17,25 @@ If not, see <http://www.gnu.org/licenses/>.
 */
 package uw.iyyuan.jenkins.timeline.domain;
 
+import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.Cause;
+import hudson.model.Queue;
 import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
 import uw.iyyuan.jenkins.timeline.CauseResolver;
+import uw.iyyuan.jenkins.timeline.util.BuildCache;
+import uw.iyyuan.jenkins.timeline.util.QueueSnapshot;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @ExportedBean(defaultVisibility = AbstractItem.VISIBILITY)
 public class TriggerCause {
@@ -42,6 +50,22 @@ public class TriggerCause {
     public static final String TYPE_TIMER = "TIMER";
     public static final String TYPE_UNKNOWN = "UNKNOWN";
 
+    private static final BuildCache<List<TriggerCause>> CACHE = new BuildCache<List<TriggerCause>>(2000);
+
+    /**
+     * Causes of queued items, keyed by queue item id. Jenkins may fold the causes of new triggers into an item
+     * still waiting in the queue, so entries only live for a few seconds.
+     */
+    private static final Cache<Long, List<TriggerCause>> QUEUED = CacheBuilder.newBuilder()
+            .maximumSize(500).expireAfterWrite(5, TimeUnit.SECONDS).build();
+
+    private static final Function<AbstractBuild<?, ?>, List<TriggerCause>> RESOLVER =
+            new Function<AbstractBuild<?, ?>, List<TriggerCause>>() {
+                @Override
+                public List<TriggerCause> apply(AbstractBuild<?, ?> build) {
+                    return resolveTriggers(build.getCauses());
+                }
+            };
 
     public TriggerCause(String type, String description) {
         this.type = type;
@@ -59,22 +83,29 @@ public class TriggerCause {
     }
 
     public static List<TriggerCause> getTriggeredBy(AbstractProject project, AbstractBuild<?, ?> build) {
-        Set<TriggerCause> result = new HashSet<TriggerCause>();
-        List<Cause> causes;
-        if (build == null && project.isInQueue()) {
-            causes = project.getQueueItem().getCauses();
-        } else {
-            if (build != null) {
-                causes = build.getCauses();
-            } else {
-                return new ArrayList<TriggerCause>();
+        if (build != null) {
+            return CACHE.get(build, RESOLVER);
+        }
+        Queue.Item item = QueueSnapshot.get().getItem(project);
+        if (item != null) {
+            Long id = (long) item.getId();
+            List<TriggerCause> triggers = QUEUED.getIfPresent(id);
+            if (triggers == null) {
+                triggers = resolveTriggers(item.getCauses());
+                QUEUED.put(id, triggers);
             }
-
+            return triggers;
         }
+        return new ArrayList<TriggerCause>();
+    }
+
+    static List<TriggerCause> resolveTriggers(List<Cause> causes) {
+        List<CauseResolver> resolvers = CauseResolver.all();
+        Set<TriggerCause> result = new HashSet<TriggerCause>();
         for (Cause cause : causes) {
-            result.add(CauseResolver.getTrigger(cause));
+            result.add(CauseResolver.getTrigger(cause, resolvers));
         }
-        return new ArrayList<TriggerCause>(result);
+        return ImmutableList.copyOf(result);
     }
 
     @Override
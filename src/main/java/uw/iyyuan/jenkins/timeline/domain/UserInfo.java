@@ -17,15 +17,26 @@ If not, see <http://www.gnu.org/licenses/>.
 */
 package uw.iyyuan.jenkins.timeline.domain;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import hudson.model.User;
 import org.kohsuke.stapler.export.Exported;
 
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class UserInfo extends AbstractItem {
 
+    /**
+     * Interned user infos by user id. Entries expire so that changed display names show up eventually.
+     */
+    private static final Cache<String, UserInfo> USERS = CacheBuilder.newBuilder()
+            .maximumSize(5000)
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .build();
+
     private final String url;
 
     public UserInfo(String name, String url) {
@@ -39,7 +50,12 @@ public class UserInfo extends AbstractItem {
     }
 
     public static UserInfo getUser(User user) {
-        return new UserInfo(user.getDisplayName(), user.getUrl());
+        UserInfo userInfo = USERS.getIfPresent(user.getId());
+        if (userInfo == null) {
+            userInfo = new UserInfo(user.getDisplayName(), user.getUrl());
+            USERS.put(user.getId(), userInfo);
+        }
+        return userInfo;
     }
 
     public static Set<UserInfo> getContributors(List<Change> changes) {
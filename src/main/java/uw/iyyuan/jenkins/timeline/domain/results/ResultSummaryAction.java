@@ -0,0 +1,96 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.domain.results;
+
+import com.google.common.collect.ImmutableList;
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+import java.util.List;
+
+/**
+ * Lightweight summary of the test and static analysis results of a completed build, stored on the build so the
+ * result files never have to be loaded again just to render the counts.
+ *
+ * <p>Urls are kept relative to the build so the summary survives job renames.
+ */
+public class ResultSummaryAction extends InvisibleAction {
+
+    static final boolean PERSIST = Boolean.getBoolean(ResultSummaryAction.class.getName() + ".persist");
+
+    private final List<TestResult> testResults;
+    private final List<StaticAnalysisResult> staticAnalysisResults;
+
+    ResultSummaryAction(AbstractBuild<?, ?> build, List<TestResult> testResults,
+                        List<StaticAnalysisResult> staticAnalysisResults) {
+        String buildUrl = build.getUrl();
+        ImmutableList.Builder<TestResult> tests = ImmutableList.builder();
+        for (TestResult result : testResults) {
+            tests.add(new TestResult(result.getName(), relative(buildUrl, result.getUrl()), result.getFailed(),
+                    result.getSkipped(), result.getTotal()));
+        }
+        ImmutableList.Builder<StaticAnalysisResult> analysis = ImmutableList.builder();
+        for (StaticAnalysisResult result : staticAnalysisResults) {
+            analysis.add(new StaticAnalysisResult(result.getName(), relative(buildUrl, result.getUrl()),
+                    result.getHigh(), result.getNormal(), result.getLow()));
+        }
+        this.testResults = tests.build();
+        this.staticAnalysisResults = analysis.build();
+    }
+
+    public List<TestResult> getTestResults(AbstractBuild<?, ?> build) {
+        ImmutableList.Builder<TestResult> result = ImmutableList.builder();
+        for (TestResult summary : testResults) {
+            result.add(new TestResult(summary.getName(), build.getUrl() + summary.getUrl(), summary.getFailed(),
+                    summary.getSkipped(), summary.getTotal()));
+        }
+        return result.build();
+    }
+
+    public List<StaticAnalysisResult> getStaticAnalysisResults(AbstractBuild<?, ?> build) {
+        ImmutableList.Builder<StaticAnalysisResult> result = ImmutableList.builder();
+        for (StaticAnalysisResult summary : staticAnalysisResults) {
+            result.add(new StaticAnalysisResult(summary.getName(), build.getUrl() + summary.getUrl(),
+                    summary.getHigh(), summary.getNormal(), summary.getLow()));
+        }
+        return result.build();
+    }
+
+    private static String relative(String buildUrl, String url) {
+        return url.startsWith(buildUrl) ? url.substring(buildUrl.length()) : url;
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run> {
+
+        @Override
+        public void onCompleted(Run run, TaskListener listener) {
+            if (PERSIST && run instanceof AbstractBuild) {
+                AbstractBuild<?, ?> build = (AbstractBuild<?, ?>) run;
+                if (build.getAction(ResultSummaryAction.class) == null) {
+                    build.addAction(new ResultSummaryAction(build, TestResult.resolveResults(build),
+                            StaticAnalysisResult.resolveResults(build)));
+                }
+            }
+        }
+    }
+}
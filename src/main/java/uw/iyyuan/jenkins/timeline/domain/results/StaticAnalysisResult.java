@@ -17,6 +17,8 @@ If not, see <http://www.gnu.org/licenses/>.
 */
 package uw.iyyuan.jenkins.timeline.domain.results;
 
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import hudson.model.AbstractBuild;
 import hudson.model.Action;
 import hudson.plugins.analysis.core.AbstractResultAction;
@@ -24,6 +26,8 @@ import hudson.plugins.analysis.core.BuildResult;
 import hudson.plugins.analysis.core.MavenResultAction;
 import hudson.plugins.analysis.core.ResultAction;
 import org.kohsuke.stapler.export.Exported;
+import uw.iyyuan.jenkins.timeline.util.BuildCache;
+import uw.iyyuan.jenkins.timeline.util.Deadline;
 import uw.iyyuan.jenkins.timeline.util.JenkinsUtil;
 
 import java.util.ArrayList;
@@ -34,6 +38,9 @@ public class StaticAnalysisResult extends Result {
 
     private static final String ANALYSIS_CORE_PLUGIN = "analysis-core";
 
+    private static final BuildCache<List<StaticAnalysisResult>> CACHE =
+            new BuildCache<List<StaticAnalysisResult>>(2000);
+
     private int high;
     private int normal;
     private int low;
@@ -70,25 +77,47 @@ public class StaticAnalysisResult extends Result {
         return url;
     }
 
-    @SuppressWarnings("deprecation")
+    /**
+     * Returns the static analysis results of the build. Results of completed builds are resolved once and then
+     * served from a cache, so the analysis result files are not loaded again on every view refresh.
+     */
     public static List<StaticAnalysisResult> getResults(AbstractBuild<?, ?> build) {
+        if (build != null && Deadline.isThin()) {
+            List<StaticAnalysisResult> cached = CACHE.getIfPresent(build);
+            return cached != null ? cached : Collections.<StaticAnalysisResult>emptyList();
+        }
         if (build != null) {
-            if (JenkinsUtil.isPluginInstalled(ANALYSIS_CORE_PLUGIN)) {
-                List<StaticAnalysisResult> result = new ArrayList<StaticAnalysisResult>();
-                for (Action action : build.getActions()) {
-                    if (AbstractResultAction.class.isInstance(action) || MavenResultAction.class.isInstance(action)) {
-                        @SuppressWarnings("rawtypes")
-                        final BuildResult r = ((ResultAction) action).getResult();
-                        result.add(new StaticAnalysisResult(
-                                action.getDisplayName(),
-                                build.getUrl() + action.getUrlName(),
-                                r.getNumberOfHighPriorityWarnings(),
-                                r.getNumberOfNormalPriorityWarnings(),
-                                r.getNumberOfLowPriorityWarnings()));
+            return CACHE.get(build, new Function<AbstractBuild<?, ?>, List<StaticAnalysisResult>>() {
+                @Override
+                public List<StaticAnalysisResult> apply(AbstractBuild<?, ?> input) {
+                    ResultSummaryAction summary = input.getAction(ResultSummaryAction.class);
+                    if (summary != null) {
+                        return summary.getStaticAnalysisResults(input);
                     }
+                    return ImmutableList.copyOf(resolveResults(input));
+                }
+            });
+        }
+        return Collections.emptyList();
+    }
+
+    @SuppressWarnings("deprecation")
+    static List<StaticAnalysisResult> resolveResults(AbstractBuild<?, ?> build) {
+        if (JenkinsUtil.isPluginInstalled(ANALYSIS_CORE_PLUGIN)) {
+            List<StaticAnalysisResult> result = new ArrayList<StaticAnalysisResult>();
+            for (Action action : build.getActions()) {
+                if (AbstractResultAction.class.isInstance(action) || MavenResultAction.class.isInstance(action)) {
+                    @SuppressWarnings("rawtypes")
+                    final BuildResult r = ((ResultAction) action).getResult();
+                    result.add(new StaticAnalysisResult(
+                            action.getDisplayName(),
+                            build.getUrl() + action.getUrlName(),
+                            r.getNumberOfHighPriorityWarnings(),
+                            r.getNumberOfNormalPriorityWarnings(),
+                            r.getNumberOfLowPriorityWarnings()));
                 }
-                return result;
             }
+            return result;
         }
         return Collections.emptyList();
     }
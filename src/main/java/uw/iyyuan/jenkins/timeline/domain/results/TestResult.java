@@ -17,9 +17,13 @@ If not, see <http://www.gnu.org/licenses/>.
 */
 package uw.iyyuan.jenkins.timeline.domain.results;
 
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import hudson.model.AbstractBuild;
 import hudson.tasks.test.AbstractTestResultAction;
 import org.kohsuke.stapler.export.Exported;
+import uw.iyyuan.jenkins.timeline.util.BuildCache;
+import uw.iyyuan.jenkins.timeline.util.Deadline;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +31,8 @@ import java.util.List;
 
 public class TestResult extends Result {
 
+    private static final BuildCache<List<TestResult>> CACHE = new BuildCache<List<TestResult>>(2000);
+
     private int failed;
     private int skipped;
     private int total;
@@ -54,21 +60,42 @@ public class TestResult extends Result {
         return total;
     }
 
+    /**
+     * Returns the test results of the build. Results of completed builds are resolved once and then served from
+     * a cache, so the test report is not loaded again on every view refresh.
+     */
     public static List<TestResult> getResults(AbstractBuild<?, ?> build) {
+        if (build != null && Deadline.isThin()) {
+            List<TestResult> cached = CACHE.getIfPresent(build);
+            return cached != null ? cached : Collections.<TestResult>emptyList();
+        }
         if (build != null) {
-            List<TestResult> result = new ArrayList<TestResult>();
-            AbstractTestResultAction resultAction = build.getAction(AbstractTestResultAction.class);
-            if (resultAction != null) {
-                result.add(new TestResult(
-                        resultAction.getDisplayName(),
-                        build.getUrl() + resultAction.getUrlName(),
-                        resultAction.getFailCount(),
-                        resultAction.getSkipCount(),
-                        resultAction.getTotalCount()));
-            }
-            return result;
+            return CACHE.get(build, new Function<AbstractBuild<?, ?>, List<TestResult>>() {
+                @Override
+                public List<TestResult> apply(AbstractBuild<?, ?> input) {
+                    ResultSummaryAction summary = input.getAction(ResultSummaryAction.class);
+                    if (summary != null) {
+                        return summary.getTestResults(input);
+                    }
+                    return ImmutableList.copyOf(resolveResults(input));
+                }
+            });
         }
         return Collections.emptyList();
     }
 
+    static List<TestResult> resolveResults(AbstractBuild<?, ?> build) {
+        List<TestResult> result = new ArrayList<TestResult>();
+        AbstractTestResultAction resultAction = build.getAction(AbstractTestResultAction.class);
+        if (resultAction != null) {
+            result.add(new TestResult(
+                    resultAction.getDisplayName(),
+                    build.getUrl() + resultAction.getUrlName(),
+                    resultAction.getFailCount(),
+                    resultAction.getSkipCount(),
+                    resultAction.getTotalCount()));
+        }
+        return result;
+    }
+
 }
@@ -31,6 +31,7 @@ import static uw.iyyuan.jenkins.timeline.domain.status.StatusType.UNSTABLE;
 
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
+import hudson.model.Queue;
 import hudson.model.Result;
 import org.apache.commons.collections.CollectionUtils;
 import org.kohsuke.stapler.export.Exported;
@@ -38,8 +39,11 @@ import org.kohsuke.stapler.export.ExportedBean;
 import uw.iyyuan.jenkins.timeline.domain.AbstractItem;
 import uw.iyyuan.jenkins.timeline.domain.status.promotion.AbstractPromotionStatusProvider;
 import uw.iyyuan.jenkins.timeline.domain.status.promotion.PromotionStatus;
+import uw.iyyuan.jenkins.timeline.util.Deadline;
+import uw.iyyuan.jenkins.timeline.util.EstimatedDurations;
 import uw.iyyuan.jenkins.timeline.util.PipelineUtils;
 import uw.iyyuan.jenkins.timeline.util.ProjectUtil;
+import uw.iyyuan.jenkins.timeline.util.QueueSnapshot;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -155,8 +159,9 @@ public class SimpleStatus implements Status {
 
     public static Status resolveStatus(AbstractProject project, AbstractBuild build, AbstractBuild firstBuild) {
         if (build == null) {
-            if (ProjectUtil.isQueued(project, firstBuild)) {
-                return StatusFactory.queued(project.getQueueItem().getInQueueSince());
+            Queue.Item item = QueueSnapshot.get().getItem(project);
+            if (item != null && ProjectUtil.isQueued(project, firstBuild)) {
+                return StatusFactory.queued(item.getInQueueSince());
             } else if (project.isDisabled()) {
                 return StatusFactory.disabled();
             } else {
@@ -165,8 +170,9 @@ public class SimpleStatus implements Status {
         }
 
         if (build.isBuilding()) {
+            long estimatedDuration = EstimatedDurations.get(build);
             int progress = (int) round(100.0d * (currentTimeMillis() - build.getTimestamp().getTimeInMillis())
-                                / build.getEstimatedDuration());
+                                / estimatedDuration);
             if (progress > 100) {
                 progress = 99;
             }
@@ -200,6 +206,9 @@ public class SimpleStatus implements Status {
     }
 
     private static boolean isBuildPromoted(AbstractBuild build) {
+        if (Deadline.isThin()) {
+            return false;
+        }
         final List<AbstractPromotionStatusProvider> promotionStatusProviders =
                 SimpleStatus.promotionStatusProviderWrapper.getAllPromotionStatusProviders();
         if (CollectionUtils.isNotEmpty(promotionStatusProviders)) {
@@ -213,6 +222,9 @@ public class SimpleStatus implements Status {
 
     private static List<PromotionStatus> getPromotionStatusList(AbstractBuild build) {
         final List<PromotionStatus> promotionStatusList = new ArrayList<PromotionStatus>();
+        if (Deadline.isThin()) {
+            return promotionStatusList;
+        }
 
         final List<AbstractPromotionStatusProvider> promotionStatusProviders =
                 SimpleStatus.promotionStatusProviderWrapper.getAllPromotionStatusProviders();
@@ -23,11 +23,15 @@ import java.util.List;
 
 public final class StatusFactory {
 
+    // Idle and disabled statuses carry no build state, so every task shares the same instances
+    private static final Status IDLE = new SimpleStatus(StatusType.IDLE, -1, -1);
+    private static final Status DISABLED = new SimpleStatus(StatusType.DISABLED, -1, -1);
+
     private StatusFactory() {
     }
 
     public static Status idle() {
-        return new SimpleStatus(StatusType.IDLE, -1, -1);
+        return IDLE;
     }
 
     public static Status running(int percentage, long lastActivity, long duration) {
@@ -59,6 +63,6 @@ public final class StatusFactory {
     }
 
     public static Status disabled() {
-        return new SimpleStatus(StatusType.DISABLED, -1, -1);
+        return DISABLED;
     }
 }
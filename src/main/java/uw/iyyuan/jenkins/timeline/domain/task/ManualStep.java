@@ -19,18 +19,16 @@ package uw.iyyuan.jenkins.timeline.domain.task;
 
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
-import hudson.model.Item;
 import hudson.model.Result;
 import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
 import uw.iyyuan.jenkins.timeline.domain.AbstractItem;
-import uw.iyyuan.jenkins.timeline.trigger.ManualTriggerResolver;
+import uw.iyyuan.jenkins.timeline.trigger.ManualTriggerIndex;
+import uw.iyyuan.jenkins.timeline.util.BuildPermissions;
 import uw.iyyuan.jenkins.timeline.util.BuildUtil;
 import uw.iyyuan.jenkins.timeline.util.JenkinsUtil;
 import uw.iyyuan.jenkins.timeline.util.ProjectUtil;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
@@ -40,22 +38,26 @@ public class ManualStep {
     private final String upstreamProject;
     private final String upstreamId;
     private final boolean enabled;
-    private final boolean permission;
+    private final String project;
     private final Map<String, String> possibleVersions;
 
-    public ManualStep(String upstreamProject, String upstreamId, boolean enabled, boolean permission,
+    /**
+     * @param project the full name of the project that is triggered, whether the user may trigger it is checked when
+     *                the step is exported
+     */
+    public ManualStep(String upstreamProject, String upstreamId, boolean enabled, String project,
                       Map<String, String> possibleVersions) {
         this.upstreamProject = upstreamProject;
         this.upstreamId = upstreamId;
         this.enabled = enabled;
-        this.permission = permission;
+        this.project = project;
         this.possibleVersions = possibleVersions;
     }
 
     @CheckForNull
     public static ManualStep resolveManualStep(AbstractProject project) {
         if (isManualTrigger(project)) {
-            return new ManualStep(project.getName(), null, false, project.hasPermission(Item.BUILD), null);
+            return new ManualStep(project.getName(), null, false, project.getFullName(), null);
         } else {
             return null;
         }
@@ -63,22 +65,11 @@ public class ManualStep {
 
 
     static boolean isManualTrigger(AbstractProject<?, ?> project) {
-        List<ManualTriggerResolver> resolvers = ManualTriggerResolver.all();
-        for (ManualTriggerResolver manualTriggerResolver : resolvers) {
-            if (manualTriggerResolver.isManualTrigger(project)) {
-                return true;
-            }
-        }
-        return false;
+        return ManualTriggerIndex.get().isManualTrigger(project);
     }
 
     private static List<AbstractProject> getUpstreamManualTriggered(AbstractProject<?, ?> project) {
-        List<ManualTriggerResolver> resolvers = ManualTriggerResolver.all();
-        List<AbstractProject> result = new ArrayList<AbstractProject>();
-        for (ManualTriggerResolver manualTriggerResolver : resolvers) {
-            result.addAll(manualTriggerResolver.getUpstreamManualTriggered(project));
-        }
-        return result;
+        return ManualTriggerIndex.get().getUpstreamManualTriggered(project);
     }
 
     @CheckForNull
@@ -90,14 +81,14 @@ public class ManualStep {
             for (int i = 0; i < upstreams.size(); i++) {
                 AbstractProject upstream = upstreams.get(i);
                 @SuppressWarnings("unchecked")
-                AbstractBuild upstreamBuild = BuildUtil.match(upstream.getBuilds(), firstBuild);
+                AbstractBuild upstreamBuild = BuildUtil.match(upstream, firstBuild);
                 if (build == null) {
                     if (upstreamBuild != null && !upstreamBuild.isBuilding()
                             && !ProjectUtil.isQueued(project, firstBuild)) {
                         Result result = upstreamBuild.getResult();
                         return new ManualStep(upstream.getRelativeNameFrom(JenkinsUtil.getInstance()),
                                 String.valueOf(upstreamBuild.getNumber()), result != null
-                                && !result.isWorseThan(Result.UNSTABLE), project.hasPermission(Item.BUILD), null);
+                                && !result.isWorseThan(Result.UNSTABLE), project.getFullName(), null);
                     }
                 } else {
                     Result result = build.getResult();
@@ -105,12 +96,12 @@ public class ManualStep {
                             && result != null && result.isWorseThan(Result.UNSTABLE)) {
                         return new ManualStep(upstream.getRelativeNameFrom(JenkinsUtil.getInstance()),
                                 String.valueOf(upstreamBuild.getNumber()), true,
-                                project.hasPermission(Item.BUILD), null);
+                                project.getFullName(), null);
                     }
                 }
                 if (i == upstreams.size() - 1) {
                     return new ManualStep(upstream.getRelativeNameFrom(JenkinsUtil.getInstance()), null, false,
-                            project.hasPermission(Item.BUILD), null);
+                            project.getFullName(), null);
                 }
             }
         }
@@ -120,18 +111,12 @@ public class ManualStep {
     @CheckForNull
     public static ManualStep getManualStepAggregated(AbstractProject project, AbstractProject firstProject) {
         if (isManualTrigger(project)) {
-            Map<String, String> versions = new HashMap<String, String>();
             AbstractProject<?, ?> upstream = (AbstractProject<?, ?>) project.getUpstreamProjects().get(0);
-            for (AbstractBuild build : upstream.getBuilds()) {
-                AbstractBuild versionBuild = BuildUtil.getFirstUpstreamBuild(build, firstProject);
-                if (versionBuild != null && !versions.containsKey(versionBuild.getDisplayName())) {
-                    versions.put(versionBuild.getDisplayName(), String.valueOf(versionBuild.getNumber()));
-                }
-            }
+            Map<String, String> versions = ManualStepVersions.getVersions(upstream, firstProject);
             if (versions.isEmpty()) {
-                return new ManualStep(upstream.getName(), null, false, project.hasPermission(Item.BUILD), versions);
+                return new ManualStep(upstream.getName(), null, false, project.getFullName(), versions);
             }
-            return new ManualStep(upstream.getName(), null, true, project.hasPermission(Item.BUILD), versions);
+            return new ManualStep(upstream.getName(), null, true, project.getFullName(), versions);
         }
         return null;
     }
@@ -153,7 +138,7 @@ public class ManualStep {
 
     @Exported
     public boolean isPermission() {
-        return permission;
+        return BuildPermissions.canBuild(project);
     }
 
     @Exported
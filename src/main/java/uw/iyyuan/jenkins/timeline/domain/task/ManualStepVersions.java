@@ -0,0 +1,310 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.domain.task;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.security.ACL;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import uw.iyyuan.jenkins.timeline.util.BuildUtil;
+import uw.iyyuan.jenkins.timeline.util.JenkinsUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The versions an aggregated manual step can be triggered with, kept per upstream project.
+ *
+ * <p>The versions of an upstream project are the first upstream builds of its builds. They are resolved from the
+ * history of the upstream project once, and then updated as its builds start and complete. Only the most recent
+ * versions are kept, as many as the system property
+ * {@code uw.iyyuan.jenkins.timeline.domain.task.ManualStepVersions.max} says. Deleting a build of the upstream project
+ * that a version was found for resolves the versions again, while a deleted version build is just not listed.
+ * Upstream builds are looked up as the system, since the versions are shared by all users.
+ */
+public final class ManualStepVersions {
+
+    static final int MAX_VERSIONS = Integer.getInteger(ManualStepVersions.class.getName() + ".max", 100);
+
+    private static final Cache<AbstractProject<?, ?>, ConcurrentMap<String, Versions>> VERSIONS =
+            CacheBuilder.newBuilder().weakKeys().<AbstractProject<?, ?>, ConcurrentMap<String, Versions>>build();
+
+    private ManualStepVersions() {
+    }
+
+    /**
+     * Returns the version display names and build numbers of the builds of the upstream project, newest first.
+     */
+    static Map<String, String> getVersions(AbstractProject<?, ?> upstream, AbstractProject<?, ?> firstProject) {
+        ConcurrentMap<String, Versions> byFirst = getByFirst(upstream);
+        Versions versions = byFirst.get(firstProject.getFullName());
+        if (versions == null) {
+            byFirst.putIfAbsent(firstProject.getFullName(), new Versions());
+            versions = byFirst.get(firstProject.getFullName());
+        }
+        boolean load;
+        synchronized (versions) {
+            load = !versions.loaded;
+            if (load && versions.pending == null) {
+                versions.pending = new ArrayList<Version>();
+            }
+        }
+        if (load) {
+            List<Version> resolved;
+            SecurityContext previous = ACL.impersonate(ACL.SYSTEM);
+            try {
+                resolved = resolve(upstream, firstProject);
+            } finally {
+                SecurityContextHolder.setContext(previous);
+            }
+            synchronized (versions) {
+                if (!versions.loaded) {
+                    for (Version version : resolved) {
+                        versions.add(version);
+                    }
+                    for (Version version : versions.pending) {
+                        versions.add(version);
+                    }
+                    versions.pending = null;
+                    versions.loaded = true;
+                }
+            }
+        }
+        List<List<Object>> newestFirst;
+        synchronized (versions) {
+            newestFirst = new ArrayList<List<Object>>(versions.builds.keySet());
+        }
+        Collections.reverse(newestFirst);
+
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        for (List<Object> key : newestFirst) {
+            AbstractProject<?, ?> project = JenkinsUtil.getInstance().getItemByFullName((String) key.get(0),
+                    AbstractProject.class);
+            AbstractBuild<?, ?> build = project != null ? project.getBuildByNumber((Integer) key.get(1)) : null;
+            if (build != null && !result.containsKey(build.getDisplayName())) {
+                result.put(build.getDisplayName(), String.valueOf(build.getNumber()));
+            }
+        }
+        return result;
+    }
+
+    private static ConcurrentMap<String, Versions> getByFirst(AbstractProject<?, ?> upstream) {
+        try {
+            return VERSIONS.get(upstream, new Callable<ConcurrentMap<String, Versions>>() {
+                @Override
+                public ConcurrentMap<String, Versions> call() {
+                    return new ConcurrentHashMap<String, Versions>();
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Walks the history of the upstream project until the most recent versions are found.
+     *
+     * @return the versions, oldest first
+     */
+    private static List<Version> resolve(AbstractProject<?, ?> upstream, AbstractProject<?, ?> firstProject) {
+        Map<List<Object>, Version> found = new LinkedHashMap<List<Object>, Version>();
+        for (AbstractBuild<?, ?> build : upstream.getBuilds()) {
+            if (found.size() >= MAX_VERSIONS) {
+                break;
+            }
+            Version version = Version.of(build, firstProject);
+            if (version != null && !found.containsKey(version.key)) {
+                found.put(version.key, version);
+            }
+        }
+        List<Version> result = new ArrayList<Version>(found.values());
+        Collections.reverse(result);
+        return result;
+    }
+
+    static void update(AbstractBuild<?, ?> build) {
+        ConcurrentMap<String, Versions> byFirst = VERSIONS.getIfPresent(build.getProject());
+        if (byFirst == null) {
+            return;
+        }
+        SecurityContext previous = ACL.impersonate(ACL.SYSTEM);
+        try {
+            for (Map.Entry<String, Versions> entry : byFirst.entrySet()) {
+                AbstractProject<?, ?> firstProject = JenkinsUtil.getInstance().getItemByFullName(entry.getKey(),
+                        AbstractProject.class);
+                Version version = firstProject != null ? Version.of(build, firstProject) : null;
+                if (version == null) {
+                    continue;
+                }
+                Versions versions = entry.getValue();
+                synchronized (versions) {
+                    if (versions.loaded) {
+                        versions.add(version);
+                    } else if (versions.pending != null) {
+                        versions.pending.add(version);
+                    }
+                }
+            }
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    /**
+     * Forgets the versions of the upstream project that were found for the deleted build, so that they are resolved
+     * again from the remaining history.
+     */
+    static void deleted(AbstractBuild<?, ?> build) {
+        ConcurrentMap<String, Versions> byFirst = VERSIONS.getIfPresent(build.getProject());
+        if (byFirst == null) {
+            return;
+        }
+        for (Map.Entry<String, Versions> entry : byFirst.entrySet()) {
+            Versions versions = entry.getValue();
+            boolean found;
+            synchronized (versions) {
+                found = versions.isFoundFor(build.getNumber());
+            }
+            if (found) {
+                // A load in progress keeps adding to the removed versions instead of the ones resolved next
+                byFirst.remove(entry.getKey(), versions);
+            }
+        }
+    }
+
+    static void invalidateAll() {
+        VERSIONS.invalidateAll();
+    }
+
+    /**
+     * A version build, and the number of the newest build of the upstream project it was found for.
+     */
+    private static final class Version {
+        private final List<Object> key;
+        private final int source;
+
+        private Version(List<Object> key, int source) {
+            this.key = key;
+            this.source = source;
+        }
+
+        private static Version of(AbstractBuild<?, ?> build, AbstractProject<?, ?> firstProject) {
+            AbstractBuild<?, ?> versionBuild = BuildUtil.getFirstUpstreamBuild(build, firstProject);
+            if (versionBuild == null) {
+                return null;
+            }
+            return new Version(Arrays.<Object>asList(versionBuild.getProject().getFullName(),
+                    versionBuild.getNumber()), build.getNumber());
+        }
+    }
+
+    /**
+     * The versions of one upstream project for one first project, in the order their newest build was seen.
+     */
+    private static final class Versions {
+        private final LinkedHashMap<List<Object>, Integer> builds = new LinkedHashMap<List<Object>, Integer>();
+        private boolean loaded;
+        // Builds that start or complete while the history is being resolved
+        private List<Version> pending;
+
+        private void add(Version version) {
+            Integer source = builds.get(version.key);
+            if (source != null && source > version.source) {
+                return;
+            }
+            builds.remove(version.key);
+            builds.put(version.key, version.source);
+            Iterator<List<Object>> oldest = builds.keySet().iterator();
+            while (builds.size() > MAX_VERSIONS) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+
+        private boolean isFoundFor(int source) {
+            if (builds.containsValue(source)) {
+                return true;
+            }
+            if (pending != null) {
+                for (Version version : pending) {
+                    if (version.source == source) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run> {
+
+        @Override
+        public void onStarted(Run run, TaskListener listener) {
+            if (run instanceof AbstractBuild) {
+                update((AbstractBuild<?, ?>) run);
+            }
+        }
+
+        @Override
+        public void onCompleted(Run run, TaskListener listener) {
+            if (run instanceof AbstractBuild) {
+                update((AbstractBuild<?, ?>) run);
+            }
+        }
+
+        @Override
+        public void onDeleted(Run run) {
+            if (run instanceof AbstractBuild) {
+                deleted((AbstractBuild<?, ?>) run);
+            }
+        }
+    }
+
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onRenamed(Item item, String oldName, String newName) {
+            invalidateAll();
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            invalidateAll();
+        }
+    }
+}
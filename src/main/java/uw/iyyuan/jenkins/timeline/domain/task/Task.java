@@ -22,9 +22,11 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static uw.iyyuan.jenkins.timeline.domain.status.StatusFactory.disabled;
 import static uw.iyyuan.jenkins.timeline.domain.status.StatusFactory.idle;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
-import hudson.model.Item;
 import hudson.model.ItemGroup;
 import jenkins.model.Jenkins;
 import org.kohsuke.stapler.export.Exported;
@@ -36,58 +38,73 @@ import uw.iyyuan.jenkins.timeline.domain.results.TestResult;
 import uw.iyyuan.jenkins.timeline.domain.status.SimpleStatus;
 import uw.iyyuan.jenkins.timeline.domain.status.Status;
 import uw.iyyuan.jenkins.timeline.token.TokenUtils;
+import uw.iyyuan.jenkins.timeline.util.BuildPermissions;
+import uw.iyyuan.jenkins.timeline.util.BuildStateVersions;
 import uw.iyyuan.jenkins.timeline.util.BuildUtil;
+import uw.iyyuan.jenkins.timeline.util.Deadline;
+import uw.iyyuan.jenkins.timeline.util.PermissionPartition;
 import uw.iyyuan.jenkins.timeline.util.ProjectUtil;
+import uw.iyyuan.jenkins.timeline.util.SearchHorizon;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
 
 @ExportedBean(defaultVisibility = AbstractItem.VISIBILITY)
 public class Task extends AbstractItem {
-    private final String id;
+
+    static final long MEMO_SIZE = Long.getLong(Task.class.getName() + ".memoSize", 10000);
+
+    /**
+     * Task instances by the build state they were created from, see {@link #getMemoKey}. Instances of running builds
+     * change every time and are never kept.
+     */
+    private static final Cache<List<Object>, Task> LATEST = CacheBuilder.newBuilder()
+            .maximumSize(MEMO_SIZE).expireAfterAccess(10, TimeUnit.MINUTES).build();
+    private static final Cache<List<Object>, List<Task>> TRIGGERED = CacheBuilder.newBuilder()
+            .maximumSize(MEMO_SIZE).expireAfterAccess(10, TimeUnit.MINUTES).build();
+
+    private final Definition definition;
     private final String link;
     private final List<TestResult> testResults;
     private final List<StaticAnalysisResult> staticAnalysisResults;
     private final Status status;
     private final ManualStep manual;
     private final String buildId;
-    private final List<String> downstreamTasks;
-    private final boolean initial;
     private final String description;
-    private final AbstractProject project;
 
-    public Task(AbstractProject project, String id, String name, Status status, String link,
+    public Task(String id, String name, Status status, String link,
             ManualStep manual, List<String> downstreamTasks, boolean initial,
             String description) {
         super(name);
-        this.id = id;
+        this.definition = new Definition(id, downstreamTasks, initial);
         this.link = link;
         this.testResults = null;
         this.staticAnalysisResults = null;
         this.status = status;
         this.manual = manual;
         this.buildId = null;
-        this.downstreamTasks = downstreamTasks;
-        this.initial = initial;
         this.description = description;
-        this.project = project;
     }
 
+    /**
+     * Creates an instance of the prototype task. The instance shares the definition of the prototype and only
+     * holds the state of the build it shows.
+     */
     public Task(Task task, String taskName, String buildId, Status status, String link, ManualStep manual,
             List<TestResult> testResults, List<StaticAnalysisResult> staticAnalysisResults,
             String description) {
         super(taskName);
-        this.id = task.id;
+        this.definition = task.definition;
         this.link = link;
         this.testResults = testResults;
         this.staticAnalysisResults = staticAnalysisResults;
         this.status = status;
         this.manual = manual;
         this.buildId = buildId;
-        this.downstreamTasks = task.getDownstreamTasks();
-        this.initial = task.isInitial();
         this.description = description;
-        this.project = task.project;
     }
 
     @Exported
@@ -107,7 +124,7 @@ public class Task extends AbstractItem {
 
     @Exported
     public String getId() {
-        return id;
+        return definition.id;
     }
 
     @Exported
@@ -132,7 +149,7 @@ public class Task extends AbstractItem {
 
     @Exported
     public List<String> getDownstreamTasks() {
-        return downstreamTasks;
+        return definition.downstreamTasks;
     }
 
     @Exported
@@ -142,18 +159,18 @@ public class Task extends AbstractItem {
 
     @Exported
     public boolean isRebuildable() {
-        if (initial) {
+        if (definition.initial) {
             return false;
         }
         if (status.isRunning() || status.isIdle() || status.isNotBuilt() || status.isQueued() || status.isDisabled()) {
             return false;
         } else {
-            return project.hasPermission(Item.BUILD);
+            return BuildPermissions.canBuild(getId());
         }
     }
 
     public boolean isInitial() {
-        return initial;
+        return definition.initial;
     }
 
     public static Task getPrototypeTask(AbstractProject project, boolean initial) {
@@ -176,15 +193,22 @@ public class Task extends AbstractItem {
         for (AbstractProject downstreamProject : downStreams) {
             downStreamTasks.add(downstreamProject.getRelativeNameFrom(Jenkins.getInstance()));
         }
-        return new Task(project, project.getRelativeNameFrom(Jenkins.getInstance()), taskName, status,
+        return new Task(project.getRelativeNameFrom(Jenkins.getInstance()), taskName, status,
                 project.getUrl(), ManualStep.resolveManualStep(project), downStreamTasks, initial, descriptionTemplate);
     }
 
     public List<Task> getAllTriggeredTasks(ItemGroup context, AbstractBuild firstBuild) {
         AbstractProject<?, ?> project = getProject(this, context);
+        List<Object> key = getMemoKey(project, firstBuild);
+        if (key != null) {
+            List<Task> memo = TRIGGERED.getIfPresent(key);
+            if (memo != null) {
+                return memo;
+            }
+        }
         List<AbstractBuild> builds = null;
         if (!ProjectUtil.isQueued(project, firstBuild)) {
-            builds = BuildUtil.matchAll(project.getBuilds(), firstBuild);
+            builds = BuildUtil.matchAll(project, firstBuild);
         }
 
         List<Task> allTriggeredTasks = new ArrayList<Task>();
@@ -208,39 +232,85 @@ public class Task extends AbstractItem {
                                            getBuildDescription(build)));
         }
 
+        if (key != null && isMemoisable(allTriggeredTasks)) {
+            allTriggeredTasks = ImmutableList.copyOf(allTriggeredTasks);
+            TRIGGERED.put(key, allTriggeredTasks);
+        }
         return allTriggeredTasks;
     }
 
     public Task getLatestTask(ItemGroup context, AbstractBuild firstBuild) {
         AbstractProject<?, ?> project = getProject(this, context);
+        List<Object> key = getMemoKey(project, firstBuild);
+        if (key != null) {
+            Task memo = LATEST.getIfPresent(key);
+            if (memo != null) {
+                return memo;
+            }
+        }
         AbstractBuild<?, ?> build = null;
         if (!ProjectUtil.isQueued(project, firstBuild)) {
-            build = BuildUtil.match(project.getBuilds(), firstBuild);
+            build = BuildUtil.match(project, firstBuild);
         }
 
         final Status taskStatus = SimpleStatus.resolveStatus(project, build, firstBuild);
         final ManualStep manualStep = ManualStep.getManualStepLatest(project, build, firstBuild);
 
-        return new Task(this,
-                        resolveTaskName(project, getExpandedName(build)),
-                        resolveBuildId(taskStatus, build),
-                        taskStatus,
-                        resolveTaskLink(taskStatus, build),
-                        manualStep,
-                        TestResult.getResults(build),
-                        StaticAnalysisResult.getResults(build),
-                        getBuildDescription(build));
+        Task task = new Task(this,
+                             resolveTaskName(project, getExpandedName(build)),
+                             resolveBuildId(taskStatus, build),
+                             taskStatus,
+                             resolveTaskLink(taskStatus, build),
+                             manualStep,
+                             TestResult.getResults(build),
+                             StaticAnalysisResult.getResults(build),
+                             getBuildDescription(build));
+        if (key != null && isMemoisable(Arrays.asList(task))) {
+            LATEST.put(key, task);
+        }
+        return task;
+    }
+
+    /**
+     * Identifies the instance of this task in the pipeline started by the first build. The key holds the version of
+     * the build state of the job, so it changes whenever a build of the job starts, completes or is queued. Manual
+     * steps also depend on the builds of the upstream jobs and on which of them the user may read, so they are keyed
+     * by the global version and the {@link PermissionPartition} instead.
+     *
+     * @return the key, or null if the instance should not be memoised
+     */
+    @CheckForNull
+    private List<Object> getMemoKey(AbstractProject<?, ?> project, AbstractBuild firstBuild) {
+        if (project == null || firstBuild == null) {
+            return null;
+        }
+        long version = manual != null ? BuildStateVersions.getGlobal() : BuildStateVersions.get(project);
+        return Arrays.<Object>asList(getId(), getName(), getDescription(), getLink(), manual != null,
+                getDownstreamTasks(), isInitial(), firstBuild.getProject().getFullName(), firstBuild.getNumber(),
+                version, SearchHorizon.current(), PermissionPartition.currentKey());
+    }
+
+    private static boolean isMemoisable(List<Task> tasks) {
+        if (Deadline.isThin()) {
+            return false;
+        }
+        for (Task task : tasks) {
+            if (task.getStatus().isRunning()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public Task getAggregatedTask(AbstractBuild versionBuild, ItemGroup context) {
         AbstractProject<?, ?> taskProject = getProject(this, context);
-        AbstractBuild<?, ?> build = BuildUtil.match(taskProject.getBuilds(), versionBuild);
+        AbstractBuild<?, ?> build = BuildUtil.match(taskProject, versionBuild);
 
         final Status taskStatus = SimpleStatus.resolveStatus(taskProject, build, null);
         final ManualStep manualStep = this.getManualStep();
 
         return new Task(this,
-                        resolveTaskName(project, getExpandedName(build)),
+                        resolveTaskName(taskProject, getExpandedName(build)),
                         resolveBuildId(taskStatus, build),
                         taskStatus,
                         resolveTaskLink(taskStatus, build),
@@ -297,13 +367,29 @@ public class Task extends AbstractItem {
     @Override
     public String toString() {
         return toStringHelper(this)
-                .add("id", id)
+                .add("id", getId())
                 .add("link", link)
                 .add("testResults", testResults)
                 .add("staticAnalysisResults", staticAnalysisResults)
                 .add("status", status)
                 .add("manual", manual)
                 .add("buildId", buildId)
-                .add("downstreamTasks", downstreamTasks).toString();
+                .add("downstreamTasks", getDownstreamTasks()).toString();
+    }
+
+    /**
+     * Job and downstream relations of a task. Resolved once for the prototype task and shared by all instances
+     * created from it. The job is held by name only, so that tasks never pin a project in memory.
+     */
+    private static final class Definition {
+        private final String id;
+        private final List<String> downstreamTasks;
+        private final boolean initial;
+
+        private Definition(String id, List<String> downstreamTasks, boolean initial) {
+            this.id = id;
+            this.downstreamTasks = downstreamTasks;
+            this.initial = initial;
+        }
     }
 }
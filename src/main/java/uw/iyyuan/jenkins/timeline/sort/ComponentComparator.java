@@ -22,9 +22,11 @@ import hudson.ExtensionPoint;
 import hudson.model.Describable;
 import hudson.model.Descriptor;
 import uw.iyyuan.jenkins.timeline.domain.Component;
+import uw.iyyuan.jenkins.timeline.domain.Pipeline;
 import uw.iyyuan.jenkins.timeline.util.JenkinsUtil;
 
 import java.util.Comparator;
+import javax.annotation.CheckForNull;
 
 public abstract class ComponentComparator implements Comparator<Component>, ExtensionPoint,
         Describable<ComponentComparator> {
@@ -34,6 +36,23 @@ public abstract class ComponentComparator implements Comparator<Component>, Exte
         return (ComponentComparatorDescriptor) JenkinsUtil.getInstance().getDescriptor(getClass());
     }
 
+    /**
+     * Returns a key that orders the component exactly like {@link #compare(Object, Object)} does, computed from the
+     * projects of the pipeline without building the component.
+     *
+     * <p>When all components of a view have a key, the view only builds the components it is going to show, so a
+     * key that only approximates the order shows other components than sorting all of them would. Comparators that
+     * look at the builds of the pipeline instances, like the last activity or a failed task, cannot tell that from
+     * the configuration and have no key.
+     *
+     * @param prototype the pipeline as extracted from the project configuration, without any builds
+     * @return the sort key, or null if this comparator needs the built component
+     */
+    @CheckForNull
+    public SortKey getSortKey(Pipeline prototype) {
+        return null;
+    }
+
     public static DescriptorExtensionList<ComponentComparator, ComponentComparatorDescriptor> all() {
         return JenkinsUtil.getInstance().getDescriptorList(ComponentComparator.class);
     }
@@ -24,18 +24,35 @@ import uw.iyyuan.jenkins.timeline.domain.Stage;
 import uw.iyyuan.jenkins.timeline.domain.task.Task;
 
 import java.io.Serializable;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 public class FailedJobComparator extends ComponentComparator implements Serializable {
 
+    private final LatestActivityComparator latestActivityComparator = new LatestActivityComparator();
+    private transient Map<Component, Boolean> failed;
+
     @Override
     public int compare(Component o1, Component o2) {
-        if ((hasFailedJob(firstPipeline(o1)) && (!hasFailedJob(firstPipeline(o2))))) {
+        if ((hasFailedJob(o1) && (!hasFailedJob(o2)))) {
             return -1;
-        } else if ((hasFailedJob(firstPipeline(o2)) && (!hasFailedJob(firstPipeline(o1))))) {
+        } else if ((hasFailedJob(o2) && (!hasFailedJob(o1)))) {
             return 1;
         } else {
-            return new LatestActivityComparator().compare(o1, o2);
+            return latestActivityComparator.compare(o1, o2);
+        }
+    }
+
+    private synchronized boolean hasFailedJob(Component component) {
+        if (failed == null) {
+            failed = new IdentityHashMap<Component, Boolean>();
+        }
+        Boolean result = failed.get(component);
+        if (result == null) {
+            result = hasFailedJob(firstPipeline(component));
+            failed.put(component, result);
         }
+        return result;
     }
 
     private Pipeline firstPipeline(Component component) {
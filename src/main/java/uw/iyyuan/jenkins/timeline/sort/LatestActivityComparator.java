@@ -24,12 +24,35 @@ import uw.iyyuan.jenkins.timeline.domain.Stage;
 import uw.iyyuan.jenkins.timeline.domain.task.Task;
 
 import java.io.Serializable;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 public class LatestActivityComparator extends ComponentComparator implements Serializable {
 
+    private transient Map<Component, Long> activities;
+
     @Override
     public int compare(Component o1, Component o2) {
-        return Long.valueOf(getLastActivity(o2)).compareTo(getLastActivity(o1));
+        return Long.valueOf(getCachedLastActivity(o2)).compareTo(getCachedLastActivity(o1));
+    }
+
+    /**
+     * The last activity of a component does not change during a sort, so it is only computed once per component
+     * and comparator instance.
+     */
+    private synchronized long getCachedLastActivity(Component component) {
+        if (component == null) {
+            return 0;
+        }
+        if (activities == null) {
+            activities = new IdentityHashMap<Component, Long>();
+        }
+        Long result = activities.get(component);
+        if (result == null) {
+            result = getLastActivity(component);
+            activities.put(component, result);
+        }
+        return result;
     }
 
     private long getLastActivity(Pipeline pipeline) {
@@ -19,6 +19,7 @@ package uw.iyyuan.jenkins.timeline.sort;
 
 import hudson.Extension;
 import uw.iyyuan.jenkins.timeline.domain.Component;
+import uw.iyyuan.jenkins.timeline.domain.Pipeline;
 
 import java.io.Serializable;
 
@@ -29,6 +30,14 @@ public class NameComparator extends ComponentComparator implements Serializable
         return o1.getName().compareTo(o2.getName());
     }
 
+    /**
+     * A component is named after its pipeline, so the name is known before the component is built.
+     */
+    @Override
+    public SortKey getSortKey(Pipeline prototype) {
+        return new SortKey(prototype.getName());
+    }
+
     @Extension
     public static class DescriptorImpl extends ComponentComparatorDescriptor {
         @Override
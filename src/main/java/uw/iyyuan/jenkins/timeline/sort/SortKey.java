@@ -0,0 +1,67 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.sort;
+
+import java.util.Arrays;
+
+/**
+ * Cheap key used to select and order components before they are built, compared value by value with lower
+ * values first. The values at the same position of two keys must be comparable with each other.
+ */
+public final class SortKey implements Comparable<SortKey> {
+
+    private final Comparable<?>[] values;
+
+    public SortKey(Comparable<?>... values) {
+        this.values = values.clone();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int compareTo(SortKey other) {
+        int length = Math.min(values.length, other.values.length);
+        for (int i = 0; i < length; i++) {
+            int result = ((Comparable<Object>) values[i]).compareTo(other.values[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return values.length - other.values.length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return Arrays.equals(values, ((SortKey) obj).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -17,11 +17,18 @@ If not, see <http://www.gnu.org/licenses/>.
 */
 package uw.iyyuan.jenkins.timeline.token;
 
+import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import hudson.model.AbstractBuild;
 import hudson.model.TaskListener;
 import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
 import org.jenkinsci.plugins.tokenmacro.TokenMacro;
+import uw.iyyuan.jenkins.timeline.util.BuildCache;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,8 +40,33 @@ public final class TokenUtils {
     private static final Logger LOG = Logger.getLogger(TokenUtils.class.getName());
     private static final String MESSAGE = "Error during decoding template - ";
 
+    /**
+     * Expanded templates per completed build, keyed by template.
+     */
+    private static final BuildCache<ConcurrentMap<String, String>> COMPLETED =
+            new BuildCache<ConcurrentMap<String, String>>(2000);
+
+    /**
+     * Expanded templates per running build. Values may still change while the build runs, so they are only reused
+     * for a few seconds.
+     */
+    private static final Cache<AbstractBuild<?, ?>, ConcurrentMap<String, String>> RUNNING = CacheBuilder.newBuilder()
+            .weakKeys().maximumSize(500).expireAfterWrite(5, TimeUnit.SECONDS).build();
+
+    private static final Function<AbstractBuild<?, ?>, ConcurrentMap<String, String>> NEW_MAP =
+            new Function<AbstractBuild<?, ?>, ConcurrentMap<String, String>>() {
+                @Override
+                public ConcurrentMap<String, String> apply(AbstractBuild<?, ?> build) {
+                    return new ConcurrentHashMap<String, String>();
+                }
+            };
+
     /**
      * Expand all tokens for provided template via TokenMacro.expandAll
+     *
+     * <p>Successful expansions are cached per build and template, permanently for completed builds and briefly for
+     * running builds. Failed expansions are retried on the next call.
+     *
      * @param build - current build
      * @param template - template to decode
      * @return decoded template or empty when an error occurred or build is empty
@@ -42,7 +74,18 @@ public final class TokenUtils {
     public static String decodedTemplate(AbstractBuild<?, ?> build, String template) {
         try {
             if (build != null) {
-                return TokenMacro.expandAll(build, TaskListener.NULL, template);
+                if (template == null) {
+                    return TokenMacro.expandAll(build, TaskListener.NULL, template);
+                }
+                ConcurrentMap<String, String> expansions = getExpansions(build);
+                String expanded = expansions.get(template);
+                if (expanded == null) {
+                    expanded = TokenMacro.expandAll(build, TaskListener.NULL, template);
+                    if (expanded != null) {
+                        expansions.put(template, expanded);
+                    }
+                }
+                return expanded;
             } else {
                 /* if we don't have build we should hide variable ex. ${VAR} */
                 return template.replaceAll("\\$\\{.*?\\}", "...");
@@ -56,6 +99,18 @@ public final class TokenUtils {
         return "";
     }
 
+    private static ConcurrentMap<String, String> getExpansions(AbstractBuild<?, ?> build) {
+        if (!build.isBuilding()) {
+            return COMPLETED.get(build, NEW_MAP);
+        }
+        ConcurrentMap<String, String> expansions = RUNNING.getIfPresent(build);
+        if (expansions == null) {
+            expansions = NEW_MAP.apply(build);
+            RUNNING.put(build, expansions);
+        }
+        return expansions;
+    }
+
     public static boolean stringIsNotEmpty(String string) {
         if (string == null || "".equals(string)) {
             return Boolean.FALSE;
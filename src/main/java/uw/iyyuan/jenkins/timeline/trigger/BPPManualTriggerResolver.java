@@ -52,20 +52,7 @@ public class BPPManualTriggerResolver extends ManualTriggerResolver {
     }
 
     public boolean isManualTrigger(AbstractProject<?, ?> project) {
-        List<AbstractProject> upstreamProjects = project.getUpstreamProjects();
-        for (AbstractProject upstreamProject : upstreamProjects) {
-            DescribableList<Publisher, Descriptor<Publisher>> upstreamPublishersLists =
-                    upstreamProject.getPublishersList();
-            for (Publisher upstreamPub : upstreamPublishersLists) {
-                if (upstreamPub instanceof BuildPipelineTrigger) {
-                    String names = ((BuildPipelineTrigger) upstreamPub).getDownstreamProjectNames();
-                    if (ProjectUtil.getProjectList(names, project.getParent(), null).contains(project)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return !getUpstreamManualTriggered(project).isEmpty();
     }
 
     @Override
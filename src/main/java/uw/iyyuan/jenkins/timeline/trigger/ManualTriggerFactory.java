@@ -19,7 +19,6 @@ package uw.iyyuan.jenkins.timeline.trigger;
 
 import hudson.model.AbstractProject;
 
-import java.util.List;
 import javax.annotation.CheckForNull;
 
 public final class ManualTriggerFactory {
@@ -29,14 +28,7 @@ public final class ManualTriggerFactory {
 
     @CheckForNull
     public static ManualTrigger getManualTrigger(AbstractProject<?, ?> project, AbstractProject<?, ?> downstream) {
-        List<ManualTriggerResolver> resolvers = ManualTriggerResolver.all();
-        for (ManualTriggerResolver resolver : resolvers) {
-            ManualTrigger trigger = resolver.getManualTrigger(project, downstream);
-            if (trigger != null) {
-                return trigger;
-            }
-        }
-        return null;
+        return ManualTriggerIndex.get().getManualTrigger(project, downstream);
     }
 
 }
@@ -0,0 +1,153 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.trigger;
+
+import com.google.common.base.Optional;
+import hudson.model.AbstractProject;
+import hudson.model.DependencyGraph;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import uw.iyyuan.jenkins.timeline.util.JenkinsUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.CheckForNull;
+
+/**
+ * The manual edges between jobs, as found by the {@link ManualTriggerResolver}s.
+ *
+ * <p>Resolvers look at the publishers of all upstream jobs and resolve the job names they trigger. The edges only
+ * change when a job is configured, created, renamed or deleted, and Jenkins rebuilds its dependency graph whenever
+ * that happens. So the edges of a job are resolved once and then reused for as long as the dependency graph is the
+ * same. They are resolved as the system, since the index is shared by all users.
+ */
+public final class ManualTriggerIndex {
+
+    private static volatile ManualTriggerIndex current;
+
+    private final DependencyGraph graph;
+    private final ConcurrentMap<String, Boolean> manual = new ConcurrentHashMap<String, Boolean>();
+    private final ConcurrentMap<String, List<String>> upstreams = new ConcurrentHashMap<String, List<String>>();
+    private final ConcurrentMap<List<String>, Optional<ManualTrigger>> triggers =
+            new ConcurrentHashMap<List<String>, Optional<ManualTrigger>>();
+
+    private ManualTriggerIndex(DependencyGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Returns the index of the current dependency graph.
+     */
+    public static ManualTriggerIndex get() {
+        DependencyGraph graph = JenkinsUtil.getInstance().getDependencyGraph();
+        ManualTriggerIndex index = current;
+        if (index == null || index.graph != graph) {
+            index = new ManualTriggerIndex(graph);
+            current = index;
+        }
+        return index;
+    }
+
+    /**
+     * Returns true if the project is triggered manually by one of its upstream projects.
+     */
+    public boolean isManualTrigger(AbstractProject<?, ?> project) {
+        Boolean result = manual.get(project.getFullName());
+        if (result == null) {
+            SecurityContext previous = ACL.impersonate(ACL.SYSTEM);
+            try {
+                result = false;
+                for (ManualTriggerResolver resolver : ManualTriggerResolver.all()) {
+                    if (resolver.isManualTrigger(project)) {
+                        result = true;
+                        break;
+                    }
+                }
+            } finally {
+                SecurityContextHolder.setContext(previous);
+            }
+            manual.put(project.getFullName(), result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the upstream projects that trigger the project manually, as far as the current user can see them.
+     */
+    public List<AbstractProject> getUpstreamManualTriggered(AbstractProject<?, ?> project) {
+        List<String> names = upstreams.get(project.getFullName());
+        if (names == null) {
+            names = new ArrayList<String>();
+            SecurityContext previous = ACL.impersonate(ACL.SYSTEM);
+            try {
+                for (ManualTriggerResolver resolver : ManualTriggerResolver.all()) {
+                    for (AbstractProject upstream : resolver.getUpstreamManualTriggered(project)) {
+                        names.add(upstream.getFullName());
+                    }
+                }
+            } finally {
+                SecurityContextHolder.setContext(previous);
+            }
+            names = Collections.unmodifiableList(names);
+            upstreams.put(project.getFullName(), names);
+        }
+        List<AbstractProject> result = new ArrayList<AbstractProject>();
+        Jenkins jenkins = JenkinsUtil.getInstance();
+        for (String name : names) {
+            AbstractProject upstream = jenkins.getItemByFullName(name, AbstractProject.class);
+            if (upstream != null) {
+                result.add(upstream);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the trigger that builds the project manually from the upstream project.
+     *
+     * @return the trigger, or null if the upstream project does not trigger the project manually
+     */
+    @CheckForNull
+    public ManualTrigger getManualTrigger(AbstractProject<?, ?> project, AbstractProject<?, ?> upstream) {
+        List<String> key = Arrays.asList(project.getFullName(), upstream.getFullName());
+        Optional<ManualTrigger> result = triggers.get(key);
+        if (result == null) {
+            SecurityContext previous = ACL.impersonate(ACL.SYSTEM);
+            try {
+                result = Optional.absent();
+                for (ManualTriggerResolver resolver : ManualTriggerResolver.all()) {
+                    ManualTrigger trigger = resolver.getManualTrigger(project, upstream);
+                    if (trigger != null) {
+                        result = Optional.of(trigger);
+                        break;
+                    }
+                }
+            } finally {
+                SecurityContextHolder.setContext(previous);
+            }
+            triggers.put(key, result);
+        }
+        return result.orNull();
+    }
+}
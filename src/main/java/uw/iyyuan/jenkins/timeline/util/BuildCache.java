@@ -0,0 +1,92 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import hudson.model.AbstractBuild;
+
+/**
+ * Bounded, least recently used cache of values derived from completed builds.
+ *
+ * <p>Builds are held by weak identity keys, so an entry never keeps a build record in memory after Jenkins has
+ * unloaded it. Values for builds that are still running are computed on every call since they may still change.
+ */
+public class BuildCache<V> {
+
+    private final Cache<AbstractBuild<?, ?>, V> cache;
+
+    public BuildCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder().weakKeys().maximumSize(maximumSize).build();
+    }
+
+    public BuildCache(long maximumWeight, Weigher<AbstractBuild<?, ?>, V> weigher) {
+        this.cache = CacheBuilder.newBuilder().weakKeys().maximumWeight(maximumWeight).weigher(weigher).build();
+    }
+
+    /**
+     * Returns the cached value for the build, resolving it with the loader when missing.
+     *
+     * @param build the build, not null
+     * @param loader resolves the value, only called on a cache miss or while the build is running
+     * @return the value, may be null if the loader returns null
+     */
+    public V get(AbstractBuild<?, ?> build, Function<AbstractBuild<?, ?>, V> loader) {
+        if (build.isBuilding()) {
+            return loader.apply(build);
+        }
+        V value = cache.getIfPresent(build);
+        if (value == null) {
+            value = loader.apply(build);
+            if (value != null) {
+                cache.put(build, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value for the build, or null when missing or the build is still running.
+     */
+    public V getIfPresent(AbstractBuild<?, ?> build) {
+        return build.isBuilding() ? null : cache.getIfPresent(build);
+    }
+
+    /**
+     * Caches the value for a completed build. Values for running builds are ignored.
+     */
+    public void put(AbstractBuild<?, ?> build, V value) {
+        if (!build.isBuilding()) {
+            cache.put(build, value);
+        }
+    }
+
+    public void invalidate(AbstractBuild<?, ?> build) {
+        cache.invalidate(build);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+}
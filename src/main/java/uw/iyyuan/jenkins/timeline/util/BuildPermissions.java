@@ -0,0 +1,78 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.CheckForNull;
+
+/**
+ * Whether the current user may build a project.
+ *
+ * <p>Pipelines are shared between users, see {@link PermissionPartition}, so they only name the projects and the
+ * permission is checked when they are exported. Within a request each project is checked once, however many tasks
+ * and manual steps show it.
+ */
+public final class BuildPermissions {
+
+    private static final String ATTRIBUTE = BuildPermissions.class.getName();
+
+    private BuildPermissions() {
+    }
+
+    /**
+     * @param projectName the full name of the project, may be null
+     * @return true if the project exists and the current user may build it
+     */
+    public static boolean canBuild(@CheckForNull String projectName) {
+        if (projectName == null) {
+            return false;
+        }
+        StaplerRequest req = Stapler.getCurrentRequest();
+        if (req == null) {
+            return resolve(projectName);
+        }
+        ConcurrentMap<String, Boolean> permissions = getPermissions(req);
+        Boolean permission = permissions.get(projectName);
+        if (permission == null) {
+            permission = resolve(projectName);
+            permissions.put(projectName, permission);
+        }
+        return permission;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static synchronized ConcurrentMap<String, Boolean> getPermissions(StaplerRequest req) {
+        Object permissions = req.getAttribute(ATTRIBUTE);
+        if (!(permissions instanceof ConcurrentMap)) {
+            permissions = new ConcurrentHashMap<String, Boolean>();
+            req.setAttribute(ATTRIBUTE, permissions);
+        }
+        return (ConcurrentMap<String, Boolean>) permissions;
+    }
+
+    private static boolean resolve(String projectName) {
+        AbstractProject<?, ?> project = ProjectUtil.getProject(projectName, JenkinsUtil.getInstance());
+        return project != null && project.hasPermission(Item.BUILD);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import com.google.common.util.concurrent.AtomicLongMap;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.model.queue.QueueListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions of the build state of each job. The version of a job changes whenever one of its builds starts,
+ * completes, is edited or deleted, or the job enters or leaves the queue, so anything derived from the builds of a
+ * job can be reused for as long as its version is the same.
+ *
+ * <p>The global version changes whenever the version of any job changes. Saving, renaming or deleting a job
+ * changes its version too.
+ */
+public final class BuildStateVersions {
+
+    private static final AtomicLongMap<String> VERSIONS = AtomicLongMap.create();
+    private static final AtomicLong GLOBAL = new AtomicLong();
+
+    private BuildStateVersions() {
+    }
+
+    public static long get(AbstractProject<?, ?> project) {
+        return VERSIONS.get(project.getFullName());
+    }
+
+    public static long getGlobal() {
+        return GLOBAL.get();
+    }
+
+    static void changed(Job<?, ?> job) {
+        changed(job.getFullName());
+    }
+
+    static void changed(String fullName) {
+        VERSIONS.incrementAndGet(fullName);
+        GLOBAL.incrementAndGet();
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run> {
+
+        @Override
+        public void onStarted(Run run, TaskListener listener) {
+            changed(run.getParent());
+        }
+
+        @Override
+        public void onCompleted(Run run, TaskListener listener) {
+            changed(run.getParent());
+        }
+
+        @Override
+        public void onFinalized(Run run) {
+            changed(run.getParent());
+        }
+
+        @Override
+        public void onDeleted(Run run) {
+            changed(run.getParent());
+        }
+    }
+
+    @Extension
+    public static class QueueListenerImpl extends QueueListener {
+
+        @Override
+        public void onEnterWaiting(Queue.WaitingItem item) {
+            changed(item);
+        }
+
+        @Override
+        public void onLeft(Queue.LeftItem item) {
+            changed(item);
+        }
+
+        private static void changed(Queue.Item item) {
+            if (item.task instanceof Job) {
+                BuildStateVersions.changed((Job<?, ?>) item.task);
+            }
+        }
+    }
+
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Run) {
+                changed(((Run<?, ?>) o).getParent());
+            } else if (o instanceof Item) {
+                changed(((Item) o).getFullName());
+            }
+        }
+    }
+
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onRenamed(Item item, String oldName, String newName) {
+            String parent = item.getParent().getFullName();
+            changed(parent.isEmpty() ? oldName : parent + "/" + oldName);
+            changed(item.getFullName());
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            changed(item.getFullName());
+        }
+    }
+}
@@ -22,17 +22,41 @@ import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.Cause;
 import hudson.model.CauseAction;
+import hudson.model.TaskListener;
 import hudson.util.RunList;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.CheckForNull;
 
 public final class BuildUtil {
 
+    private static final BuildCache<Map<String, String>> ENVIRONMENTS = new BuildCache<Map<String, String>>(500);
+
     private BuildUtil() {
     }
 
+    /**
+     * Returns the environment of the build. The environment of a completed build is computed once and then reused,
+     * since computing it runs every EnvironmentContributor and may contact the agent.
+     *
+     * @param build the build, not null
+     * @param listener listener used when the environment has to be computed
+     * @return an unmodifiable view of the build environment
+     */
+    public static Map<String, String> getEnvironment(AbstractBuild<?, ?> build, TaskListener listener)
+            throws IOException, InterruptedException {
+        Map<String, String> environment = ENVIRONMENTS.getIfPresent(build);
+        if (environment == null) {
+            environment = Collections.unmodifiableMap(build.getEnvironment(listener));
+            ENVIRONMENTS.put(build, environment);
+        }
+        return environment;
+    }
+
     @CheckForNull
     public static AbstractBuild getUpstreamBuild(AbstractBuild build) {
         List<CauseAction> actions = build.getActions(CauseAction.class);
@@ -81,13 +105,165 @@ public final class BuildUtil {
         return build;
     }
 
+    /**
+     * Returns the latest build of the project that has been triggered by the first build, within the
+     * {@link SearchHorizon} of the current thread. Uses the {@link RunIndex} when it knows the first build, so that
+     * only matching builds are loaded.
+     */
+    @CheckForNull
+    public static AbstractBuild match(AbstractProject<?, ?> project, @CheckForNull AbstractBuild firstBuild) {
+        List<AbstractBuild> builds = matchWithin(project, firstBuild, true);
+        return builds.isEmpty() ? null : builds.get(0);
+    }
+
+    /**
+     * Returns all builds of the project that have been triggered by the first build, latest first, within the
+     * {@link SearchHorizon} of the current thread. Uses the {@link RunIndex} when it knows the first build, so that
+     * only matching builds are loaded.
+     */
+    @CheckForNull
+    public static List<AbstractBuild> matchAll(AbstractProject<?, ?> project, @CheckForNull AbstractBuild firstBuild) {
+        List<AbstractBuild> builds = matchWithin(project, firstBuild, false);
+        return builds.isEmpty() ? null : builds;
+    }
+
+    private static List<AbstractBuild> matchWithin(AbstractProject<?, ?> project,
+                                                   @CheckForNull AbstractBuild<?, ?> firstBuild, boolean latestOnly) {
+        List<AbstractBuild> result = new ArrayList<AbstractBuild>();
+        if (firstBuild == null) {
+            return result;
+        }
+        SearchHorizon horizon = SearchHorizon.current();
+        List<AbstractBuild> indexed = matchIndexed(project, firstBuild, latestOnly && horizon.isUnbounded());
+        if (indexed != null && horizon.isUnbounded()) {
+            return indexed;
+        }
+        int[] range = getSearchRange(project, firstBuild, horizon);
+        if (range == null) {
+            return result;
+        }
+        if (indexed != null) {
+            for (AbstractBuild build : indexed) {
+                if (build.getNumber() >= range[0] && build.getNumber() <= range[1]) {
+                    result.add(build);
+                    if (latestOnly) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        }
+        for (AbstractBuild build = project.getNearestOldBuild(range[1]);
+             build != null && build.getNumber() >= range[0]; build = build.getPreviousBuild()) {
+            if (equals(getFirstUpstreamBuild(build, firstBuild.getProject()), firstBuild)) {
+                result.add(build);
+                if (latestOnly) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the builds triggered by the first build in the index. Every build is checked against its causes, in
+     * case the index holds builds of a deleted job with the same name.
+     *
+     * @return the builds, or null if the index can not answer
+     */
+    @CheckForNull
+    private static List<AbstractBuild> matchIndexed(AbstractProject<?, ?> project, AbstractBuild<?, ?> firstBuild,
+                                                    boolean latestOnly) {
+        RunIndex index = RunIndex.get();
+        if (index == null) {
+            return null;
+        }
+        List<Integer> numbers = index.getTriggered(project, firstBuild);
+        if (numbers == null) {
+            return null;
+        }
+        List<AbstractBuild> result = new ArrayList<AbstractBuild>();
+        for (Integer number : numbers) {
+            AbstractBuild build = project.getBuildByNumber(number);
+            if (build != null && equals(getFirstUpstreamBuild(build, firstBuild.getProject()), firstBuild)) {
+                result.add(build);
+                if (latestOnly) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the numbers of the oldest and the newest build of the project that may have been triggered by the
+     * first build: from the first build that started after it, up to the horizon.
+     *
+     * @return the build numbers, or null if no build of the project started after the first build
+     */
+    @CheckForNull
+    static int[] getSearchRange(AbstractProject<?, ?> project, AbstractBuild<?, ?> firstBuild,
+                                SearchHorizon horizon) {
+        long start = firstBuild.getTimeInMillis();
+        AbstractBuild<?, ?> oldest = getFirstStartedFrom(project, start);
+        if (oldest == null) {
+            return null;
+        }
+        AbstractBuild<?, ?> last = project.getLastBuild();
+        int newest = last.getNumber();
+        if (horizon.getDays() > 0) {
+            AbstractBuild<?, ?> beyond = getFirstStartedFrom(project, start + horizon.getDaysMillis() + 1);
+            if (beyond != null) {
+                newest = beyond.getNumber() - 1;
+            }
+        }
+        if (horizon.getBuilds() > 0) {
+            newest = Math.min(newest, oldest.getNumber() + horizon.getBuilds() - 1);
+        }
+        return new int[] {oldest.getNumber(), newest};
+    }
+
+    /**
+     * Finds the oldest build of the project that started at or after the time, with a binary search over the build
+     * numbers. Build numbers are handed out in the order builds start, so their start times are ordered too.
+     */
+    @CheckForNull
+    private static AbstractBuild<?, ?> getFirstStartedFrom(AbstractProject<?, ?> project, long time) {
+        AbstractBuild<?, ?> result = project.getLastBuild();
+        if (result == null || result.getTimeInMillis() < time) {
+            return null;
+        }
+        AbstractBuild<?, ?> first = project.getFirstBuild();
+        int low = first.getNumber();
+        int high = result.getNumber() - 1;
+        while (low <= high) {
+            int middle = low + (high - low) / 2;
+            AbstractBuild<?, ?> build = project.getNearestBuild(middle);
+            if (build == null || build.getNumber() > high) {
+                // No build between the middle and the upper bound
+                high = middle - 1;
+            } else if (build.getTimeInMillis() >= time) {
+                result = build;
+                high = build.getNumber() - 1;
+            } else {
+                low = build.getNumber() + 1;
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns the build for a projects that has been triggered by the supplied upstream project.
+     * Immediately stops searching once a build that started before the supplied upstream build is found.
      */
     @CheckForNull
     public static AbstractBuild match(RunList<? extends AbstractBuild> runList, AbstractBuild firstBuild) {
         if (firstBuild != null) {
+            long firstBuildTs = firstBuild.getTimeInMillis();
             for (AbstractBuild currentBuild : runList) {
+                if (currentBuild.getTimeInMillis() < firstBuildTs) {
+                    break;
+                }
                 AbstractBuild build = BuildUtil.getFirstUpstreamBuild(currentBuild, firstBuild.getProject());
                 if (equals(build, firstBuild)) {
                     return currentBuild;
@@ -99,8 +275,7 @@ public final class BuildUtil {
 
     /**
      * Returns the builds for a projects that has been triggered by the supplied upstream project.
-     * Immediately stops searching once a build with a timestamp that is less than the supplied upstream project's
-     * timestamp is found
+     * Immediately stops searching once a build that started before the supplied upstream build is found.
      */
     @CheckForNull
     public static List<AbstractBuild> matchAll(RunList<? extends AbstractBuild> runList, AbstractBuild firstBuild) {
@@ -113,8 +288,8 @@ public final class BuildUtil {
                 if (equals(build, firstBuild)) {
                     matchingBuilds.add(currentBuild);
                 }
-                // Stop searching if the first upstream build occurs before the firstBuild's start timestamp
-                if (build.getTimeInMillis() < firstBuildTs) {
+                // Stop searching once the builds started before the first build, they can not be triggered by it
+                if (currentBuild.getTimeInMillis() < firstBuildTs) {
                     break;
                 }
             }
@@ -0,0 +1,115 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Time budget of a view computation.
+ *
+ * <p>Once half of the budget is used the computation turns thin: optional, expensive fields such as changes, test
+ * results and promotions are only filled in when they are already cached. Once the whole budget is used the view
+ * returns what it has. The deadline of the calling thread is carried over to the plugin's thread pools by
+ * {@link PipelineExecutors}. A deadline records whether it turned thin for the computation, so that a result missing
+ * optional fields is not taken as complete.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+    private final long thinAt;
+    private final long expiresAt;
+    private volatile boolean thin;
+
+    public Deadline(long budgetMillis) {
+        long now = System.currentTimeMillis();
+        this.thinAt = now + budgetMillis / 2;
+        this.expiresAt = now + budgetMillis;
+    }
+
+    private Deadline(long thinAt, long expiresAt) {
+        this.thinAt = thinAt;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Returns a deadline with the same limits that records on its own whether it turned thin, for a part of the
+     * computation whose result is kept separately.
+     */
+    public Deadline fork() {
+        return new Deadline(thinAt, expiresAt);
+    }
+
+    /**
+     * Returns true if optional fields were skipped under this deadline.
+     */
+    public boolean wasThin() {
+        return thin;
+    }
+
+    /**
+     * Returns the milliseconds left of the budget, never negative.
+     */
+    public long getRemaining() {
+        return Math.max(0, expiresAt - System.currentTimeMillis());
+    }
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAt;
+    }
+
+    /**
+     * Returns the deadline of the current thread, or null when the thread is not computing a view.
+     */
+    @CheckForNull
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns true if the current thread should skip optional fields that are not cached.
+     */
+    public static boolean isThin() {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && System.currentTimeMillis() >= deadline.thinAt) {
+            deadline.thin = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Makes the deadline the deadline of the current thread.
+     *
+     * @return the previous deadline of the current thread, to pass to {@link #restore(Deadline)}
+     */
+    @CheckForNull
+    public static Deadline enter(@CheckForNull Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+        return previous;
+    }
+
+    public static void restore(@CheckForNull Deadline previous) {
+        enter(previous);
+    }
+}
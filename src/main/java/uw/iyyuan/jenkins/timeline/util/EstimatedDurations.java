@@ -0,0 +1,85 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+/**
+ * Estimated durations of the builds of each project, used to show the progress of running builds.
+ *
+ * <p>Jenkins estimates the duration from the recent builds of the project, loading them when they are not in memory.
+ * The estimate only changes when a build completes, so it is kept per project until then. Projects are held by weak
+ * identity keys. The number of projects kept can be set with the system property
+ * {@code uw.iyyuan.jenkins.timeline.util.EstimatedDurations.size}.
+ */
+public final class EstimatedDurations {
+
+    private static final Cache<AbstractProject<?, ?>, Long> DURATIONS = CacheBuilder.newBuilder().weakKeys()
+            .maximumSize(Long.getLong(EstimatedDurations.class.getName() + ".size", 1000)).build();
+
+    private EstimatedDurations() {
+    }
+
+    /**
+     * Returns the estimated duration of the build in milliseconds, or -1 if there is no estimate.
+     */
+    public static long get(AbstractBuild<?, ?> build) {
+        AbstractProject<?, ?> project = build.getProject();
+        if (project == null) {
+            return build.getEstimatedDuration();
+        }
+        Long duration = DURATIONS.getIfPresent(project);
+        if (duration == null) {
+            duration = build.getEstimatedDuration();
+            DURATIONS.put(project, duration);
+        }
+        return duration;
+    }
+
+    static void invalidate(Run<?, ?> run) {
+        if (run instanceof AbstractBuild) {
+            DURATIONS.invalidate(((AbstractBuild<?, ?>) run).getProject());
+        }
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run> {
+
+        @Override
+        public void onCompleted(Run run, TaskListener listener) {
+            invalidate(run);
+        }
+
+        @Override
+        public void onFinalized(Run run) {
+            invalidate(run);
+        }
+
+        @Override
+        public void onDeleted(Run run) {
+            invalidate(run);
+        }
+    }
+}
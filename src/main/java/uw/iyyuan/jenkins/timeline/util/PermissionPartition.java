@@ -0,0 +1,114 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import com.google.common.collect.ImmutableSet;
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import jenkins.model.Jenkins;
+
+import java.util.Collection;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+
+/**
+ * The projects of a view that a user may read.
+ *
+ * <p>Users that may read the same projects get the same pipelines, so the pipelines computed for one of them are
+ * shared with the others. What else a user may do, such as building a project, is not part of the pipelines and is
+ * looked up by {@link BuildPermissions} when they are exported. The partition of the calling thread is carried over
+ * to the plugin's thread pools by {@link PipelineExecutors}.
+ */
+public final class PermissionPartition {
+
+    private static final ThreadLocal<PermissionPartition> CURRENT = new ThreadLocal<PermissionPartition>();
+
+    private final Set<String> readable;
+
+    private PermissionPartition(Set<String> readable) {
+        this.readable = readable;
+    }
+
+    /**
+     * Returns the partition of the current user among the users of the projects.
+     */
+    public static PermissionPartition of(Collection<? extends AbstractProject<?, ?>> projects) {
+        ImmutableSet.Builder<String> readable = ImmutableSet.builder();
+        for (AbstractProject<?, ?> project : projects) {
+            if (project.hasPermission(Item.READ)) {
+                readable.add(project.getFullName());
+            }
+        }
+        return new PermissionPartition(readable.build());
+    }
+
+    /**
+     * Returns the key that cached results computed by the current thread are shared under. That is the partition
+     * when the thread is computing a view, and the name of the user otherwise.
+     */
+    public static Object currentKey() {
+        PermissionPartition partition = CURRENT.get();
+        return partition != null ? partition : Jenkins.getAuthentication().getName();
+    }
+
+    @CheckForNull
+    static PermissionPartition current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the partition the partition of the current thread.
+     *
+     * @return the previous partition of the current thread, to pass to {@link #restore(PermissionPartition)}
+     */
+    @CheckForNull
+    public static PermissionPartition enter(@CheckForNull PermissionPartition partition) {
+        PermissionPartition previous = CURRENT.get();
+        if (partition == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(partition);
+        }
+        return previous;
+    }
+
+    public static void restore(@CheckForNull PermissionPartition previous) {
+        enter(previous);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return readable.equals(((PermissionPartition) obj).readable);
+    }
+
+    @Override
+    public int hashCode() {
+        return readable.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionPartition" + readable;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import com.google.common.base.Throwables;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import org.acegisecurity.Authentication;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread pools owned by the plugin, used to build the components of a view and the pipeline instances of a
+ * component concurrently.
+ *
+ * <p>The number of threads can be set with the system properties
+ * {@code uw.iyyuan.jenkins.timeline.util.PipelineExecutors.componentThreads} and
+ * {@code uw.iyyuan.jenkins.timeline.util.PipelineExecutors.instanceThreads}. Instances run on their own pool since
+ * component threads wait for them; a single pool could fill up with waiting components and never run an instance.
+ */
+public final class PipelineExecutors {
+
+    private static final int COMPONENT_THREADS = Integer.getInteger(PipelineExecutors.class.getName()
+            + ".componentThreads", Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    private static final int INSTANCE_THREADS = Integer.getInteger(PipelineExecutors.class.getName()
+            + ".instanceThreads", Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    private static final ExecutorService COMPONENTS = newPool("Timeline view component", COMPONENT_THREADS);
+    private static final ExecutorService INSTANCES = newPool("Timeline pipeline instance", INSTANCE_THREADS);
+
+    private PipelineExecutors() {
+    }
+
+    /**
+     * Builds a component on the component pool, as the user and with the deadline of the calling thread.
+     */
+    public static <T> Future<T> submitComponent(Callable<T> task) {
+        return COMPONENTS.submit(inCallingContext(task));
+    }
+
+    /**
+     * Runs the tasks on the instance pool, as the user and with the deadline of the calling thread, and returns
+     * their results in order. A single task is run on the calling thread. The tasks must not submit further work to
+     * the instance pool.
+     *
+     * @throws CancellationException if the calling thread is interrupted while waiting
+     */
+    public static <T> List<T> invokeInstances(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<T>(tasks.size());
+        if (tasks.size() == 1) {
+            results.add(call(tasks.get(0)));
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(INSTANCES.submit(inCallingContext(task)));
+        }
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while building pipeline instances");
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            throw propagate(e);
+        }
+    }
+
+    private static RuntimeException propagate(Throwable throwable) {
+        Throwables.propagateIfPossible(throwable);
+        return new IllegalStateException(throwable);
+    }
+
+    /**
+     * Wraps the task so that it runs with the authentication, {@link Deadline}, {@link SearchHorizon} and
+     * {@link PermissionPartition} of the calling thread, so that permission checks made while building a view give
+     * the same result as on the request thread.
+     */
+    static <T> Callable<T> inCallingContext(final Callable<T> task) {
+        final Authentication authentication = Jenkins.getAuthentication();
+        final Deadline deadline = Deadline.current();
+        final SearchHorizon horizon = SearchHorizon.current();
+        final PermissionPartition partition = PermissionPartition.current();
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                SecurityContext previous = ACL.impersonate(authentication);
+                Deadline previousDeadline = Deadline.enter(deadline);
+                SearchHorizon previousHorizon = SearchHorizon.enter(horizon);
+                PermissionPartition previousPartition = PermissionPartition.enter(partition);
+                try {
+                    return task.call();
+                } finally {
+                    PermissionPartition.restore(previousPartition);
+                    SearchHorizon.restore(previousHorizon);
+                    Deadline.restore(previousDeadline);
+                    SecurityContextHolder.setContext(previous);
+                }
+            }
+        };
+    }
+
+    private static ExecutorService newPool(String name, int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new NamingThreadFactory(new DaemonThreadFactory(), name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
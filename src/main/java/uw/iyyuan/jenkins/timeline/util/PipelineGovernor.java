@@ -0,0 +1,239 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Limits how many view computations run at the same time across the whole Jenkins instance.
+ *
+ * <p>Requests wait for a permit in arrival order, first among the requests of the same view and then among all views.
+ * A view only gets some of the permits, so that a busy view does not keep the other views waiting. Requests for a
+ * computation that is already running or waiting,
+ * typically the same view polled by several browsers, share its result instead of queueing another one. A request
+ * that can not get a result in time gets the last result computed for the same key, or the fallback. Waiting counts
+ * against the {@link Deadline} of the calling thread, so a request does not wait longer than its time budget.
+ *
+ * <p>The number of concurrent computations, overall and per view, and the wait timeout in milliseconds can be set
+ * with the system properties {@code uw.iyyuan.jenkins.timeline.util.PipelineGovernor.maxConcurrent},
+ * {@code uw.iyyuan.jenkins.timeline.util.PipelineGovernor.maxConcurrentPerView} and
+ * {@code uw.iyyuan.jenkins.timeline.util.PipelineGovernor.waitTimeout}.
+ */
+public final class PipelineGovernor {
+
+    private static final Logger LOG = Logger.getLogger(PipelineGovernor.class.getName());
+
+    static final int MAX_CONCURRENT = Integer.getInteger(PipelineGovernor.class.getName() + ".maxConcurrent",
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+    static final int MAX_CONCURRENT_PER_VIEW = Integer.getInteger(
+            PipelineGovernor.class.getName() + ".maxConcurrentPerView", Math.max(1, MAX_CONCURRENT / 2));
+    static final long WAIT_TIMEOUT = Long.getLong(PipelineGovernor.class.getName() + ".waitTimeout", 10000);
+
+    private static final Semaphore PERMITS = new Semaphore(MAX_CONCURRENT, true);
+    // A semaphore is only referenced while a request of the view uses it, so an unused one has all permits free
+    private static final LoadingCache<Object, Semaphore> VIEW_PERMITS = CacheBuilder.newBuilder().weakValues()
+            .build(new CacheLoader<Object, Semaphore>() {
+                @Override
+                public Semaphore load(Object view) {
+                    return new Semaphore(MAX_CONCURRENT_PER_VIEW, true);
+                }
+            });
+    private static final ConcurrentMap<Object, FutureTask<?>> IN_FLIGHT =
+            new ConcurrentHashMap<Object, FutureTask<?>>();
+    private static final Cache<Object, Object> LAST_RESULTS = CacheBuilder.newBuilder()
+            .maximumSize(500).expireAfterAccess(10, TimeUnit.MINUTES).build();
+
+    private static final AtomicLong COMPUTATIONS = new AtomicLong();
+    private static final AtomicLong SHARED = new AtomicLong();
+    private static final AtomicLong TIMEOUTS = new AtomicLong();
+
+    private PipelineGovernor() {
+    }
+
+    /**
+     * Runs the computation once a permit is available, or joins the computation already in flight for the key.
+     *
+     * @param view identifies the view the computation is for, must implement equals and hashCode
+     * @param key identifies computations giving the same result, must implement equals and hashCode
+     * @param computation computes the result on the calling thread
+     * @param fallback returned when the result is not available in time and nothing was computed for the key before
+     * @return the result of the computation, the last result for the key or the fallback
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T compute(Object view, Object key, Callable<T> computation, T fallback) {
+        FutureTask<T> task = new FutureTask<T>(computation);
+        FutureTask<T> inFlight = (FutureTask<T>) IN_FLIGHT.putIfAbsent(key, task);
+        if (inFlight != null) {
+            SHARED.incrementAndGet();
+            return await(key, inFlight, fallback);
+        }
+        Semaphore viewPermits = VIEW_PERMITS.getUnchecked(view);
+        try {
+            long waitTimeout = getWaitTimeout();
+            long waitUntil = System.currentTimeMillis() + waitTimeout;
+            if (!viewPermits.tryAcquire(waitTimeout, TimeUnit.MILLISECONDS)) {
+                return timedOut(key, task, waitTimeout, fallback);
+            }
+            try {
+                if (!PERMITS.tryAcquire(Math.max(0, waitUntil - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                    return timedOut(key, task, waitTimeout, fallback);
+                }
+                try {
+                    COMPUTATIONS.incrementAndGet();
+                    task.run();
+                } finally {
+                    PERMITS.release();
+                }
+            } finally {
+                viewPermits.release();
+            }
+            T result = task.get();
+            LAST_RESULTS.put(key, result);
+            return result;
+        } catch (InterruptedException e) {
+            task.cancel(false);
+            Thread.currentThread().interrupt();
+            return getLastResult(key, fallback);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            IN_FLIGHT.remove(key, task);
+        }
+    }
+
+    private static <T> T timedOut(Object key, FutureTask<T> task, long waitTimeout, T fallback) {
+        LOG.log(Level.FINE, "No permit for {0} within {1} ms, {2} requests waiting",
+                new Object[] {key, waitTimeout, PERMITS.getQueueLength()});
+        task.cancel(false);
+        TIMEOUTS.incrementAndGet();
+        return getLastResult(key, fallback);
+    }
+
+    private static <T> T await(Object key, FutureTask<T> inFlight, T fallback) {
+        try {
+            return inFlight.get(getWaitTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } catch (TimeoutException e) {
+            TIMEOUTS.incrementAndGet();
+        } catch (CancellationException e) {
+            LOG.log(Level.FINE, "Computation for {0} was cancelled", key);
+        }
+        return getLastResult(key, fallback);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T getLastResult(Object key, T fallback) {
+        T last = (T) LAST_RESULTS.getIfPresent(key);
+        return last != null ? last : fallback;
+    }
+
+    private static long getWaitTimeout() {
+        Deadline deadline = Deadline.current();
+        return deadline != null ? Math.min(WAIT_TIMEOUT, deadline.getRemaining()) : WAIT_TIMEOUT;
+    }
+
+    /**
+     * Returns how the view computations have been governed since startup.
+     */
+    public static Statistics getStatistics() {
+        return new Statistics(PERMITS.getQueueLength(), MAX_CONCURRENT - PERMITS.availablePermits(),
+                COMPUTATIONS.get(), SHARED.get(), TIMEOUTS.get());
+    }
+
+    /**
+     * The state of the governor at one point in time, exported with the API of the views.
+     */
+    @ExportedBean
+    public static final class Statistics {
+        private final int queueLength;
+        private final int running;
+        private final long computations;
+        private final long shared;
+        private final long timeouts;
+
+        Statistics(int queueLength, int running, long computations, long shared, long timeouts) {
+            this.queueLength = queueLength;
+            this.running = running;
+            this.computations = computations;
+            this.shared = shared;
+            this.timeouts = timeouts;
+        }
+
+        /**
+         * Returns the number of requests waiting for a permit.
+         */
+        @Exported
+        public int getQueueLength() {
+            return queueLength;
+        }
+
+        /**
+         * Returns the number of computations running.
+         */
+        @Exported
+        public int getRunning() {
+            return running;
+        }
+
+        /**
+         * Returns the number of computations run since startup.
+         */
+        @Exported
+        public long getComputations() {
+            return computations;
+        }
+
+        /**
+         * Returns the number of requests that shared a computation already in flight.
+         */
+        @Exported
+        public long getShared() {
+            return shared;
+        }
+
+        /**
+         * Returns the number of requests that got the last result or the fallback because they waited too long.
+         */
+        @Exported
+        public long getTimeouts() {
+            return timeouts;
+        }
+    }
+}
@@ -19,26 +19,36 @@ package uw.iyyuan.jenkins.timeline.util;
 
 import static com.google.common.collect.Maps.newLinkedHashMap;
 
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import hudson.EnvVars;
 import hudson.Util;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.Cause;
 import hudson.model.Descriptor;
+import hudson.model.Item;
 import hudson.model.ItemGroup;
 import hudson.model.Items;
 import hudson.model.Project;
+import hudson.model.Queue;
 import hudson.plugins.parameterizedtrigger.BlockableBuildTriggerConfig;
 import hudson.plugins.parameterizedtrigger.TriggerBuilder;
+import hudson.security.ACL;
 import hudson.tasks.BuildStep;
 import hudson.tasks.Publisher;
 import hudson.util.DescribableList;
 import hudson.util.ListBoxModel;
+import jenkins.model.Jenkins;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
 import org.jenkinsci.plugins.conditionalbuildstep.ConditionalBuilder;
 import org.jenkinsci.plugins.postbuildscript.PostBuildScript;
 import uw.iyyuan.jenkins.timeline.RelationshipResolver;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -54,6 +64,11 @@ public final class ProjectUtil {
 
     private static final Logger LOG = Logger.getLogger(ProjectUtil.class.getName());
 
+    private static final long MAX_RESOLVED_PROJECTS =
+            Long.getLong(ProjectUtil.class.getName() + ".resolved", 10000);
+
+    private static volatile ResolvedProjects resolvedProjects;
+
     private ProjectUtil() {
     }
 
@@ -194,8 +209,44 @@ public final class ProjectUtil {
         return result;
     }
 
+    /**
+     * Resolves a project name relative to the context, as {@link Jenkins#getItem(String, ItemGroup, Class)} does.
+     *
+     * <p>Names are resolved once as the system and kept until an item is created, copied, renamed, moved or deleted,
+     * or Jenkins reloads its configuration, see {@link #invalidateResolvedProjects()}. The current user still needs
+     * read permission on the project.
+     *
+     * @return the project, or null if there is none or the user may not read it
+     */
     public static AbstractProject<?, ?> getProject(String name, ItemGroup context) {
-        return JenkinsUtil.getInstance().getItem(name, context, AbstractProject.class);
+        Jenkins jenkins = JenkinsUtil.getInstance();
+        ResolvedProjects resolved = resolvedProjects;
+        if (resolved == null || resolved.jenkins != jenkins) {
+            resolved = new ResolvedProjects(jenkins);
+            resolvedProjects = resolved;
+        }
+        List<String> key = Arrays.asList(context != null ? context.getFullName() : "", name);
+        Optional<AbstractProject<?, ?>> project = resolved.projects.getIfPresent(key);
+        if (project == null) {
+            SecurityContext previous = ACL.impersonate(ACL.SYSTEM);
+            try {
+                project = Optional.<AbstractProject<?, ?>>fromNullable(
+                        jenkins.getItem(name, context, AbstractProject.class));
+            } finally {
+                SecurityContextHolder.setContext(previous);
+            }
+            resolved.projects.put(key, project);
+        }
+        return project.isPresent() && project.get().hasPermission(Item.READ) ? project.get() : null;
+    }
+
+    /**
+     * Forgets all resolved project names, called whenever items are added, renamed, moved or removed. A lookup that
+     * started before keeps storing its result in the names it started with, which are no longer used, so a name that
+     * was not found just before a job was created is not remembered as missing.
+     */
+    public static void invalidateResolvedProjects() {
+        resolvedProjects = null;
     }
 
     public static Map<String, AbstractProject> getProjects(String regExp) {
@@ -220,29 +271,34 @@ public final class ProjectUtil {
         }
     }
 
+    /**
+     * Returns whether the project is queued, and if a first build is given, whether it was queued by a build
+     * triggered by the first build. Queue items are read from the {@link QueueSnapshot}, and each upstream cause is
+     * followed to its first build instead of matching the history of every upstream project.
+     */
     public static boolean isQueued(AbstractProject project, AbstractBuild firstBuild) {
-        if (project.isInQueue()) {
-            if (firstBuild == null) {
-                return true;
-            } else {
-                List<Cause.UpstreamCause> causes = Util.filter(project.getQueueItem().getCauses(),
-                        Cause.UpstreamCause.class);
-                @SuppressWarnings("unchecked")
-                List<AbstractProject<?,?>> upstreamProjects = project.getUpstreamProjects();
+        List<Queue.Item> items = QueueSnapshot.get().getItems(project);
+        if (items.isEmpty()) {
+            return false;
+        }
+        if (firstBuild == null) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        List<AbstractProject<?, ?>> upstreamProjects = project.getUpstreamProjects();
+        for (Queue.Item item : items) {
+            for (Cause.UpstreamCause upstreamCause : Util.filter(item.getCauses(), Cause.UpstreamCause.class)) {
                 for (AbstractProject<?, ?> upstreamProject : upstreamProjects) {
-                    AbstractBuild upstreamBuild = BuildUtil.match(upstreamProject.getBuilds(), firstBuild);
-                    if (upstreamBuild != null) {
-                        for (Cause.UpstreamCause upstreamCause : causes) {
-                            if (upstreamBuild.getNumber() == upstreamCause.getUpstreamBuild()
-                                    && upstreamProject.getRelativeNameFrom(JenkinsUtil.getInstance()).equals(
-                                    upstreamCause.getUpstreamProject())) {
-                                return true;
-                            }
-
+                    if (upstreamProject.getRelativeNameFrom(JenkinsUtil.getInstance()).equals(
+                            upstreamCause.getUpstreamProject())) {
+                        AbstractBuild upstreamBuild = upstreamProject.getBuildByNumber(
+                                upstreamCause.getUpstreamBuild());
+                        if (upstreamBuild != null && BuildUtil.equals(
+                                BuildUtil.getFirstUpstreamBuild(upstreamBuild, firstBuild.getProject()), firstBuild)) {
+                            return true;
                         }
                     }
                 }
-                return false;
             }
         }
         return false;
@@ -274,4 +330,15 @@ public final class ProjectUtil {
         return counter;
     }
 
+
+    private static final class ResolvedProjects {
+
+        private final Jenkins jenkins;
+        private final Cache<List<String>, Optional<AbstractProject<?, ?>>> projects =
+                CacheBuilder.newBuilder().maximumSize(MAX_RESOLVED_PROJECTS).build();
+
+        private ResolvedProjects(Jenkins jenkins) {
+            this.jenkins = jenkins;
+        }
+    }
 }
@@ -0,0 +1,98 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import hudson.model.AbstractProject;
+import hudson.model.Queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+
+/**
+ * The items of the build queue, indexed by job.
+ *
+ * <p>Looking up the queue item of a job takes the queue lock. A view update does that for every task of every
+ * pipeline instance, so it reads the queue once instead and shares the snapshot until the queue changes. Changes are
+ * detected through {@link BuildStateVersions}, whose global version changes whenever an item enters or leaves the
+ * queue.
+ */
+public final class QueueSnapshot {
+
+    private static volatile QueueSnapshot current;
+
+    private final Queue queue;
+    private final long version;
+    private final Map<String, List<Queue.Item>> items;
+
+    QueueSnapshot(Queue queue, long version, Queue.Item[] items) {
+        this.queue = queue;
+        this.version = version;
+        this.items = new HashMap<String, List<Queue.Item>>();
+        for (Queue.Item item : items) {
+            if (item.task instanceof AbstractProject) {
+                String name = ((AbstractProject<?, ?>) item.task).getFullName();
+                List<Queue.Item> projectItems = this.items.get(name);
+                if (projectItems == null) {
+                    projectItems = new ArrayList<Queue.Item>();
+                    this.items.put(name, projectItems);
+                }
+                projectItems.add(item);
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the queue of the running Jenkins instance, reading the queue again only if it changed
+     * since the last snapshot.
+     */
+    public static QueueSnapshot get() {
+        Queue queue = JenkinsUtil.getInstance().getQueue();
+        long version = BuildStateVersions.getGlobal();
+        QueueSnapshot snapshot = current;
+        if (snapshot == null || snapshot.queue != queue || snapshot.version != version) {
+            snapshot = new QueueSnapshot(queue, version, queue.getItems());
+            current = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the first queue item of the project, like {@link AbstractProject#getQueueItem()}.
+     */
+    @CheckForNull
+    public Queue.Item getItem(AbstractProject<?, ?> project) {
+        List<Queue.Item> projectItems = items.get(project.getFullName());
+        return projectItems != null ? projectItems.get(0) : null;
+    }
+
+    /**
+     * Returns all queue items of the project, in queue order.
+     */
+    public List<Queue.Item> getItems(AbstractProject<?, ?> project) {
+        List<Queue.Item> projectItems = items.get(project.getFullName());
+        return projectItems != null ? Collections.unmodifiableList(projectItems) : Collections.<Queue.Item>emptyList();
+    }
+
+    public boolean isQueued(AbstractProject<?, ?> project) {
+        return items.containsKey(project.getFullName());
+    }
+}
@@ -0,0 +1,708 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Cause;
+import hudson.model.Item;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+
+/**
+ * Append-only index of the builds of all jobs, stored under {@code JENKINS_HOME} so it survives restarts.
+ *
+ * <p>A record is written when a build starts, completes or is deleted. It holds the job, the build number, the
+ * upstream build that triggered it, the start time, the duration and the result. The file is read once into memory
+ * and then kept up to date by the listener, so finding the builds triggered by a build no longer walks and loads
+ * the history of every job.
+ *
+ * <p>For every job the index remembers the first build from which on all its builds are in it. That is the first
+ * build that started after the index was created, or the next build if builds were missed while the index was not
+ * listening. Queries about older builds return null, and callers fall back to walking the history. Jobs are
+ * identified by their full name, which is rewritten when a job is renamed or moved and forgotten when it is deleted.
+ *
+ * <p>Once the file grows beyond {@code uw.iyyuan.jenkins.timeline.util.RunIndex.maxSize} bytes, 64 MB by default, it
+ * is compacted to one record per build that still exists. The index can be turned off with the system property
+ * {@code uw.iyyuan.jenkins.timeline.util.RunIndex.disabled}.
+ */
+public final class RunIndex {
+
+    private static final Logger LOG = Logger.getLogger(RunIndex.class.getName());
+
+    static final boolean DISABLED = Boolean.getBoolean(RunIndex.class.getName() + ".disabled");
+    static final long MAX_SIZE = Long.getLong(RunIndex.class.getName() + ".maxSize", 64L * 1024 * 1024);
+
+    private static final int MAGIC = 0x52554e49;
+    private static final int FORMAT = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 40;
+
+    private static final int STARTED = 0;
+    private static final int COMPLETED = 1;
+    private static final int DELETED = 2;
+    private static final int SINCE = 3;
+
+    private static final int NONE = -1;
+
+    private static volatile RunIndex instance;
+
+    private final File runsFile;
+    private final File projectsFile;
+
+    private final ConcurrentMap<String, Integer> projectIds = new ConcurrentHashMap<String, Integer>();
+    private final List<String> projectNames = new ArrayList<String>();
+    private final ConcurrentMap<Long, Node> nodes = new ConcurrentHashMap<Long, Node>();
+    private final ConcurrentMap<Long, Set<Long>> children = new ConcurrentHashMap<Long, Set<Long>>();
+    private final ConcurrentMap<Integer, ConcurrentSkipListSet<Integer>> numbers =
+            new ConcurrentHashMap<Integer, ConcurrentSkipListSet<Integer>>();
+    private final ConcurrentMap<Integer, Node> firstIndexed = new ConcurrentHashMap<Integer, Node>();
+
+    private boolean writable = true;
+    private FileChannel channel;
+    private long size;
+    private long compactAt = MAX_SIZE;
+
+    RunIndex(File directory) {
+        this.runsFile = new File(directory, "runs.bin");
+        this.projectsFile = new File(directory, "projects.txt");
+    }
+
+    /**
+     * Returns the index of the running Jenkins instance, loading it on first use.
+     *
+     * @return the index, or null if it is disabled or Jenkins is not running
+     */
+    @CheckForNull
+    public static RunIndex get() {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (DISABLED || jenkins == null) {
+            return null;
+        }
+        File directory = new File(jenkins.getRootDir(), RunIndex.class.getName());
+        RunIndex index = instance;
+        if (index == null || !index.runsFile.getParentFile().equals(directory)) {
+            synchronized (RunIndex.class) {
+                index = instance;
+                if (index == null || !index.runsFile.getParentFile().equals(directory)) {
+                    index = new RunIndex(directory);
+                    index.load();
+                    instance = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the numbers of the builds of the project that were triggered by the first build, directly or through
+     * other builds, newest first. Builds of the first project are only included for the first build itself.
+     *
+     * @return the build numbers, or null if the first build is not in the index or the index does not hold all
+     *     builds of the project that started after it
+     */
+    @CheckForNull
+    public List<Integer> getTriggered(AbstractProject<?, ?> project, AbstractBuild<?, ?> firstBuild) {
+        Integer firstProjectId = projectIds.get(firstBuild.getProject().getFullName());
+        if (firstProjectId == null) {
+            return null;
+        }
+        long root = key(firstProjectId, firstBuild.getNumber());
+        if (!nodes.containsKey(root)) {
+            return null;
+        }
+        Integer projectId = projectIds.get(project.getFullName());
+        List<Integer> result = new ArrayList<Integer>();
+        if (projectId == null) {
+            return result;
+        }
+        if (projectId.equals(firstProjectId)) {
+            result.add(firstBuild.getNumber());
+            return result;
+        }
+        Node since = firstIndexed.get(projectId);
+        if (since != null && since.start > firstBuild.getTimeInMillis()) {
+            return null;
+        }
+        Queue<Long> queue = new LinkedList<Long>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Set<Long> triggered = children.get(queue.remove());
+            if (triggered == null) {
+                continue;
+            }
+            for (Long child : triggered) {
+                Node node = nodes.get(child);
+                if (node != null && node.projectId != firstProjectId) {
+                    if (node.projectId == projectId) {
+                        result.add(node.number);
+                    }
+                    queue.add(child);
+                }
+            }
+        }
+        Collections.sort(result, Collections.reverseOrder());
+        return result;
+    }
+
+    /**
+     * Finds the newest build of the project that was triggered from a build of the first project, and returns the
+     * number of that build of the first project.
+     *
+     * @param minResult only consider completed builds with at least this result, or null for all builds
+     * @return the build number, -1 if there is no such build, or null if the index does not hold enough of the
+     *     history of the project
+     */
+    @CheckForNull
+    public Integer getFirstUpstream(AbstractProject<?, ?> project, AbstractProject<?, ?> first,
+                                    @CheckForNull Result minResult) {
+        int[] latest = getLatestUpstream(project, first, minResult);
+        return latest != null ? latest[1] : null;
+    }
+
+    /**
+     * Like {@link #getFirstUpstream(AbstractProject, AbstractProject, Result)}, but also returns the number of the
+     * build of the project that was found.
+     *
+     * @return the numbers of the build of the project and of the build of the first project, both -1 if there is no
+     *     such build, or null if the index does not hold enough of the history of the project
+     */
+    @CheckForNull
+    int[] getLatestUpstream(AbstractProject<?, ?> project, AbstractProject<?, ?> first,
+                            @CheckForNull Result minResult) {
+        Integer projectId = projectIds.get(project.getFullName());
+        Integer firstProjectId = projectIds.get(first.getFullName());
+        Node since = projectId != null ? firstIndexed.get(projectId) : null;
+        if (since == null) {
+            return hasBuildsBefore(project, Integer.MAX_VALUE) ? null : new int[] {NONE, NONE};
+        }
+        ConcurrentSkipListSet<Integer> indexed = numbers.get(projectId);
+        if (firstProjectId == null || indexed == null) {
+            return hasBuildsBefore(project, since.number) ? null : new int[] {NONE, NONE};
+        }
+        for (Integer number : indexed.tailSet(since.number).descendingSet()) {
+            Node node = nodes.get(key(projectId, number));
+            if (node == null || minResult != null && (node.result == NONE || node.result > minResult.ordinal)) {
+                continue;
+            }
+            for (int depth = 0; node != null && depth < 50; depth++) {
+                if (node.projectId == firstProjectId) {
+                    return new int[] {number, node.number};
+                }
+                if (node.upstream == NONE) {
+                    break;
+                }
+                node = nodes.get(node.upstream);
+                if (node == null) {
+                    // The upstream build is older than the index or was deleted
+                    return null;
+                }
+            }
+        }
+        return hasBuildsBefore(project, since.number) ? null : new int[] {NONE, NONE};
+    }
+
+    /**
+     * Returns whether the project still has a build older than the given build number, which the index can not
+     * answer for.
+     */
+    private static boolean hasBuildsBefore(AbstractProject<?, ?> project, int number) {
+        AbstractBuild<?, ?> oldest = project.getFirstBuild();
+        return oldest != null && oldest.getNumber() < number;
+    }
+
+    synchronized void started(AbstractBuild<?, ?> build) {
+        int upstreamProjectId = NONE;
+        int upstreamNumber = NONE;
+        Cause.UpstreamCause cause = build.getCause(Cause.UpstreamCause.class);
+        if (cause != null) {
+            upstreamProjectId = getProjectId(cause.getUpstreamProject());
+            upstreamNumber = cause.getUpstreamBuild();
+        }
+        int projectId = getProjectId(build.getProject().getFullName());
+        if (!firstIndexed.containsKey(projectId)) {
+            write(projectId, build.getNumber(), NONE, NONE, build.getTimeInMillis(), 0, NONE, SINCE);
+        }
+        write(projectId, build.getNumber(), upstreamProjectId, upstreamNumber, build.getTimeInMillis(), 0, NONE,
+                STARTED);
+    }
+
+    void completed(AbstractBuild<?, ?> build) {
+        Node node = nodes.get(key(getProjectId(build.getProject().getFullName()), build.getNumber()));
+        if (node == null) {
+            return;
+        }
+        Result result = build.getResult();
+        write(node.projectId, node.number, projectId(node.upstream), number(node.upstream), build.getTimeInMillis(),
+                build.getDuration(), result != null ? result.ordinal : NONE, COMPLETED);
+    }
+
+    void deleted(AbstractBuild<?, ?> build) {
+        Node node = nodes.get(key(getProjectId(build.getProject().getFullName()), build.getNumber()));
+        if (node != null) {
+            write(node.projectId, node.number, NONE, NONE, 0, 0, NONE, DELETED);
+        }
+    }
+
+    /**
+     * Moves the builds of a job that was renamed or moved to its new name. Builds of a deleted job that had the new
+     * name before are forgotten.
+     */
+    synchronized void renamed(String oldName, String newName) {
+        Integer id = projectIds.remove(oldName);
+        if (id == null) {
+            return;
+        }
+        Integer replaced = projectIds.put(newName, id);
+        if (replaced != null) {
+            forget(replaced);
+        }
+        projectNames.set(id, newName);
+        writeProjects();
+    }
+
+    /**
+     * Forgets the builds of a deleted item, and of all jobs in it if it is a folder.
+     */
+    synchronized void itemDeleted(String name) {
+        boolean changed = false;
+        for (Map.Entry<String, Integer> entry : projectIds.entrySet()) {
+            if (entry.getKey().equals(name) || entry.getKey().startsWith(name + "/")) {
+                projectIds.remove(entry.getKey());
+                forget(entry.getValue());
+                changed = true;
+            }
+        }
+        if (changed) {
+            writeProjects();
+        }
+    }
+
+    private void forget(int projectId) {
+        projectNames.set(projectId, "");
+        firstIndexed.remove(projectId);
+        ConcurrentSkipListSet<Integer> indexed = numbers.remove(projectId);
+        if (indexed != null) {
+            for (Integer number : indexed) {
+                apply(projectId, number, NONE, NONE, 0, 0, NONE, DELETED);
+            }
+        }
+    }
+
+    private void writeProjects() {
+        if (!writable) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (String name : projectNames) {
+            lines.append(name).append('\n');
+        }
+        try {
+            File written = new File(projectsFile.getPath() + ".tmp");
+            Files.write(lines, written, Charsets.UTF_8);
+            Files.move(written, projectsFile);
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    private synchronized void write(int projectId, int number, int upstreamProjectId, int upstreamNumber,
+                                    long start, long duration, int result, int state) {
+        apply(projectId, number, upstreamProjectId, upstreamNumber, start, duration, result, state);
+        if (!writable) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putInt(projectId).putInt(number).putInt(upstreamProjectId).putInt(upstreamNumber)
+                .putLong(start).putLong(duration).putInt(result).putInt(state);
+        record.flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            disable(e);
+            return;
+        }
+        size += RECORD_SIZE;
+        if (size > compactAt) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the file with the first indexed build of every job and one record per build that is still in the
+     * index.
+     */
+    synchronized void compact() {
+        if (!writable) {
+            return;
+        }
+        File compacted = new File(runsFile.getPath() + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compacted)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                for (Node since : firstIndexed.values()) {
+                    write(out, since, SINCE);
+                }
+                for (Node node : nodes.values()) {
+                    write(out, node, node.result == NONE ? STARTED : COMPLETED);
+                }
+            } finally {
+                out.close();
+            }
+            channel.close();
+            Files.move(compacted, runsFile);
+            size = runsFile.length();
+            channel = open(size);
+        } catch (IOException e) {
+            disable(e);
+            return;
+        }
+        compactAt = Math.max(MAX_SIZE, 2 * size);
+    }
+
+    private static void write(DataOutputStream out, Node node, int state) throws IOException {
+        out.writeInt(node.projectId);
+        out.writeInt(node.number);
+        out.writeInt(projectId(node.upstream));
+        out.writeInt(number(node.upstream));
+        out.writeLong(node.start);
+        out.writeLong(node.duration);
+        out.writeInt(node.result);
+        out.writeInt(state);
+    }
+
+    private void apply(int projectId, int number, int upstreamProjectId, int upstreamNumber, long start,
+                       long duration, int result, int state) {
+        long key = key(projectId, number);
+        if (state == SINCE) {
+            firstIndexed.put(projectId, new Node(projectId, number, NONE, start, 0, NONE));
+            return;
+        }
+        if (state == DELETED) {
+            Node node = nodes.remove(key);
+            if (node != null && node.upstream != NONE) {
+                Set<Long> siblings = children.get(node.upstream);
+                if (siblings != null) {
+                    siblings.remove(key);
+                }
+            }
+            ConcurrentSkipListSet<Integer> indexed = numbers.get(projectId);
+            if (indexed != null) {
+                indexed.remove(number);
+            }
+            return;
+        }
+        long upstream = upstreamProjectId != NONE ? key(upstreamProjectId, upstreamNumber) : NONE;
+        nodes.put(key, new Node(projectId, number, upstream, start, duration, result));
+        if (upstream != NONE) {
+            Set<Long> triggered = children.get(upstream);
+            if (triggered == null) {
+                Set<Long> created = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+                triggered = children.putIfAbsent(upstream, created);
+                if (triggered == null) {
+                    triggered = created;
+                }
+            }
+            triggered.add(key);
+        }
+        ConcurrentSkipListSet<Integer> indexed = numbers.get(projectId);
+        if (indexed == null) {
+            ConcurrentSkipListSet<Integer> created = new ConcurrentSkipListSet<Integer>();
+            indexed = numbers.putIfAbsent(projectId, created);
+            if (indexed == null) {
+                indexed = created;
+            }
+        }
+        indexed.add(number);
+    }
+
+    private synchronized int getProjectId(String name) {
+        Integer id = projectIds.get(name);
+        if (id == null) {
+            id = projectNames.size();
+            projectNames.add(name);
+            projectIds.put(name, id);
+            if (writable) {
+                try {
+                    Files.append(name + "\n", projectsFile, Charsets.UTF_8);
+                } catch (IOException e) {
+                    disable(e);
+                }
+            }
+        }
+        return id;
+    }
+
+    synchronized void load() {
+        try {
+            File directory = runsFile.getParentFile();
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create " + directory);
+            }
+            long length = NONE;
+            if (projectsFile.exists() && runsFile.exists()) {
+                for (String name : Files.readLines(projectsFile, Charsets.UTF_8)) {
+                    if (!name.isEmpty()) {
+                        projectIds.put(name, projectNames.size());
+                    }
+                    projectNames.add(name);
+                }
+                length = read();
+                if (length == NONE) {
+                    LOG.log(Level.WARNING, "Discarding unreadable build index {0}", runsFile);
+                    projectIds.clear();
+                    projectNames.clear();
+                    nodes.clear();
+                    children.clear();
+                    numbers.clear();
+                    firstIndexed.clear();
+                }
+            }
+            if (length == NONE) {
+                Files.write("", projectsFile, Charsets.UTF_8);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT);
+                Files.write(header.array(), runsFile);
+                length = HEADER_SIZE;
+            }
+            channel = open(length);
+            size = length;
+            if (size > compactAt) {
+                compact();
+            }
+        } catch (IOException e) {
+            disable(e);
+        }
+        SecurityContext previous = ACL.impersonate(ACL.SYSTEM);
+        try {
+            markMissedBuilds();
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    /**
+     * Reads all complete records of the index. Records of jobs that have been deleted are skipped.
+     *
+     * @return the length of the complete records, or -1 if the index has an unknown format
+     * @throws IOException if the index can not be read
+     */
+    private long read() throws IOException {
+        long length = runsFile.length();
+        if (length < HEADER_SIZE) {
+            return NONE;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(runsFile)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                return NONE;
+            }
+            long records = (length - HEADER_SIZE) / RECORD_SIZE;
+            for (long i = 0; i < records; i++) {
+                int projectId = in.readInt();
+                int number = in.readInt();
+                int upstreamProjectId = in.readInt();
+                int upstreamNumber = in.readInt();
+                long start = in.readLong();
+                long duration = in.readLong();
+                int result = in.readInt();
+                int state = in.readInt();
+                if (projectId >= 0 && projectId < projectNames.size() && !projectNames.get(projectId).isEmpty()) {
+                    apply(projectId, number, upstreamProjectId, upstreamNumber, start, duration, result, state);
+                }
+            }
+            return HEADER_SIZE + records * RECORD_SIZE;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Opens the index for appending after the given length, dropping a record that was only partly written.
+     */
+    private FileChannel open(long length) throws IOException {
+        FileChannel opened = new RandomAccessFile(runsFile, "rw").getChannel();
+        try {
+            opened.truncate(length);
+            opened.position(length);
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+        return opened;
+    }
+
+    /**
+     * Starts the index of every job whose latest completed build is not in it over from its next build, because
+     * builds completed while the index was not listening.
+     */
+    private void markMissedBuilds() {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (AbstractProject<?, ?> job : jenkins.getAllItems(AbstractProject.class)) {
+            int latest = job.getNextBuildNumber() - 1;
+            Integer projectId = projectIds.get(job.getFullName());
+            ConcurrentSkipListSet<Integer> indexed = projectId != null ? numbers.get(projectId) : null;
+            if (latest < 1 || indexed != null && indexed.contains(latest)) {
+                continue;
+            }
+            AbstractBuild<?, ?> last = job.getLastCompletedBuild();
+            if (last == null) {
+                continue;
+            }
+            Node since = projectId != null ? firstIndexed.get(projectId) : null;
+            if (since != null && (last.getNumber() < since.number || indexed != null
+                    && indexed.contains(last.getNumber()))) {
+                continue;
+            }
+            write(getProjectId(job.getFullName()), latest + 1, NONE, NONE, now, 0, NONE, SINCE);
+        }
+    }
+
+    private void disable(IOException e) {
+        LOG.log(Level.WARNING, "Could not use build index " + runsFile + ", it is only kept in memory", e);
+        writable = false;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException closing) {
+                LOG.log(Level.FINE, "Could not close build index " + runsFile, closing);
+            }
+            channel = null;
+        }
+    }
+
+    private static long key(int projectId, int number) {
+        return ((long) projectId << 32) | (number & 0xffffffffL);
+    }
+
+    private static int projectId(long key) {
+        return key == NONE ? NONE : (int) (key >>> 32);
+    }
+
+    private static int number(long key) {
+        return key == NONE ? NONE : (int) key;
+    }
+
+    private static final class Node {
+        private final int projectId;
+        private final int number;
+        private final long upstream;
+        private final long start;
+        private final long duration;
+        private final int result;
+
+        private Node(int projectId, int number, long upstream, long start, long duration, int result) {
+            this.projectId = projectId;
+            this.number = number;
+            this.upstream = upstream;
+            this.start = start;
+            this.duration = duration;
+            this.result = result;
+        }
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run> {
+
+        @Override
+        public void onStarted(Run run, TaskListener listener) {
+            RunIndex index = get();
+            if (index != null && run instanceof AbstractBuild) {
+                index.started((AbstractBuild<?, ?>) run);
+            }
+        }
+
+        @Override
+        public void onCompleted(Run run, TaskListener listener) {
+            RunIndex index = get();
+            if (index != null && run instanceof AbstractBuild) {
+                index.completed((AbstractBuild<?, ?>) run);
+            }
+        }
+
+        @Override
+        public void onDeleted(Run run) {
+            RunIndex index = get();
+            if (index != null && run instanceof AbstractBuild) {
+                index.deleted((AbstractBuild<?, ?>) run);
+            }
+        }
+    }
+
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            RunIndex index = get();
+            if (index != null && item instanceof AbstractProject) {
+                index.renamed(oldFullName, newFullName);
+            }
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            RunIndex index = get();
+            if (index != null) {
+                index.itemDeleted(item.getFullName());
+            }
+        }
+    }
+}
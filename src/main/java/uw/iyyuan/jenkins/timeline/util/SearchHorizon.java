@@ -0,0 +1,113 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+
+/**
+ * How far the history of a job is searched for the builds triggered by a first build.
+ *
+ * <p>Builds that started before the first build can not have been triggered by it, so the search always starts at
+ * the first build's start time. The horizon also limits how many builds of the job after that, or how many days
+ * after the first build, are searched. A task without a matching build within the horizon is not triggered. Zero
+ * means no limit. The horizon of the calling thread is carried over to the plugin's thread pools by
+ * {@link PipelineExecutors}.
+ */
+public final class SearchHorizon {
+
+    public static final SearchHorizon UNBOUNDED = new SearchHorizon(0, 0);
+
+    private static final ThreadLocal<SearchHorizon> CURRENT = new ThreadLocal<SearchHorizon>();
+
+    private final int builds;
+    private final int days;
+
+    public SearchHorizon(int builds, int days) {
+        this.builds = Math.max(0, builds);
+        this.days = Math.max(0, days);
+    }
+
+    /**
+     * Returns the number of builds searched, counted from the first build that started after the first build, or
+     * zero for no limit.
+     */
+    public int getBuilds() {
+        return builds;
+    }
+
+    /**
+     * Returns the number of days after the start of the first build that are searched, or zero for no limit.
+     */
+    public int getDays() {
+        return days;
+    }
+
+    public long getDaysMillis() {
+        return TimeUnit.DAYS.toMillis(days);
+    }
+
+    public boolean isUnbounded() {
+        return builds == 0 && days == 0;
+    }
+
+    /**
+     * Returns the horizon of the current thread, unbounded when the thread is not computing a view.
+     */
+    public static SearchHorizon current() {
+        SearchHorizon horizon = CURRENT.get();
+        return horizon != null ? horizon : UNBOUNDED;
+    }
+
+    /**
+     * Makes the horizon the horizon of the current thread.
+     *
+     * @return the previous horizon of the current thread, to pass to {@link #restore(SearchHorizon)}
+     */
+    @CheckForNull
+    public static SearchHorizon enter(@CheckForNull SearchHorizon horizon) {
+        SearchHorizon previous = CURRENT.get();
+        if (horizon == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(horizon);
+        }
+        return previous;
+    }
+
+    public static void restore(@CheckForNull SearchHorizon previous) {
+        enter(previous);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        SearchHorizon other = (SearchHorizon) obj;
+        return builds == other.builds && days == other.days;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * builds + days;
+    }
+}
@@ -0,0 +1,304 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.CheckForNull;
+
+/**
+ * The version of the first project that each job last reached, overall and per minimum result.
+ *
+ * <p>The version of a job is the build of the first project that triggered its newest build, directly or through
+ * other builds. Finding it means walking the history of the job, so it is resolved once per job and minimum result
+ * and then kept up to date as builds start and complete. Deleting the build a version of a job was taken from
+ * resolves that job again, renaming or deleting a job starts over.
+ * Upstream builds are looked up as the system, since the versions are shared by all users.
+ */
+public final class UpstreamVersions {
+
+    private static final int NONE = -1;
+    private static final int ANY = 0;
+    private static final int MAX_DEPTH = 50;
+
+    private static volatile UpstreamVersions current;
+
+    private final Jenkins jenkins;
+    private final ConcurrentMap<String, ConcurrentMap<String, Versions>> versions =
+            new ConcurrentHashMap<String, ConcurrentMap<String, Versions>>();
+
+    private UpstreamVersions(Jenkins jenkins) {
+        this.jenkins = jenkins;
+    }
+
+    /**
+     * Returns the versions of the running Jenkins instance.
+     */
+    public static UpstreamVersions get() {
+        Jenkins jenkins = JenkinsUtil.getInstance();
+        UpstreamVersions result = current;
+        if (result == null || result.jenkins != jenkins) {
+            synchronized (UpstreamVersions.class) {
+                result = current;
+                if (result == null || result.jenkins != jenkins) {
+                    result = new UpstreamVersions(jenkins);
+                    current = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of the build of the first project that triggered the newest build of the project.
+     *
+     * @param minResult only consider completed builds with at least this result, or null for all builds
+     * @return the build number, or -1 if no build of the project was triggered from the first project
+     */
+    public int getFirstUpstream(AbstractProject<?, ?> project, AbstractProject<?, ?> first,
+                                @CheckForNull Result minResult) {
+        Versions projectVersions = getVersions(project.getFullName(), first.getFullName());
+        int slot = slot(minResult);
+        synchronized (projectVersions) {
+            if (projectVersions.latest[slot] != null) {
+                return projectVersions.latest[slot][1];
+            }
+        }
+        int[] latest;
+        SecurityContext previous = ACL.impersonate(ACL.SYSTEM);
+        try {
+            latest = resolve(project, first, minResult);
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+        synchronized (projectVersions) {
+            return projectVersions.resolved(slot, latest)[1];
+        }
+    }
+
+    private Versions getVersions(String project, String first) {
+        ConcurrentMap<String, Versions> byFirst = versions.get(project);
+        if (byFirst == null) {
+            versions.putIfAbsent(project, new ConcurrentHashMap<String, Versions>());
+            byFirst = versions.get(project);
+        }
+        Versions result = byFirst.get(first);
+        if (result == null) {
+            byFirst.putIfAbsent(first, new Versions());
+            result = byFirst.get(first);
+        }
+        return result;
+    }
+
+    private static int[] resolve(AbstractProject<?, ?> project, AbstractProject<?, ?> first,
+                                 @CheckForNull Result minResult) {
+        RunIndex index = RunIndex.get();
+        int[] indexed = index != null ? index.getLatestUpstream(project, first, minResult) : null;
+        if (indexed != null) {
+            return indexed;
+        }
+        for (AbstractBuild<?, ?> build : project.getBuilds()) {
+            if (minResult != null && (build.isBuilding() || build.getResult().isWorseThan(minResult))) {
+                continue;
+            }
+            AbstractBuild<?, ?> upstream = findUpstream(build, first.getFullName());
+            if (upstream != null) {
+                return new int[] {build.getNumber(), upstream.getNumber()};
+            }
+        }
+        return new int[] {NONE, NONE};
+    }
+
+    /**
+     * Follows the upstream builds of the build until reaching a build of the first project.
+     */
+    @CheckForNull
+    private static AbstractBuild<?, ?> findUpstream(AbstractBuild<?, ?> build, String first) {
+        AbstractBuild<?, ?> current = build;
+        for (int depth = 0; current != null && depth < MAX_DEPTH; depth++) {
+            if (current.getProject().getFullName().equals(first)) {
+                return current;
+            }
+            current = BuildUtil.getUpstreamBuild(current);
+        }
+        return null;
+    }
+
+    private static int slot(@CheckForNull Result minResult) {
+        return minResult == null ? ANY : minResult.ordinal + 1;
+    }
+
+    void started(AbstractBuild<?, ?> build) {
+        update(build, null);
+    }
+
+    void completed(AbstractBuild<?, ?> build) {
+        Result result = build.getResult();
+        if (result != null) {
+            update(build, result);
+        }
+    }
+
+    private void update(AbstractBuild<?, ?> build, @CheckForNull Result result) {
+        Map<String, Versions> byFirst = versions.get(build.getProject().getFullName());
+        if (byFirst == null) {
+            return;
+        }
+        SecurityContext previous = ACL.impersonate(ACL.SYSTEM);
+        try {
+            for (Map.Entry<String, Versions> entry : byFirst.entrySet()) {
+                AbstractBuild<?, ?> upstream = findUpstream(build, entry.getKey());
+                if (upstream == null) {
+                    continue;
+                }
+                int[] latest = {build.getNumber(), upstream.getNumber()};
+                Versions projectVersions = entry.getValue();
+                synchronized (projectVersions) {
+                    if (result == null) {
+                        projectVersions.update(ANY, latest);
+                    } else {
+                        for (int slot = result.ordinal + 1; slot < projectVersions.latest.length; slot++) {
+                            projectVersions.update(slot, latest);
+                        }
+                    }
+                }
+            }
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    /**
+     * Forgets the versions of the job of the build that were taken from it, so that they are resolved again.
+     */
+    void deleted(AbstractBuild<?, ?> build) {
+        Map<String, Versions> byFirst = versions.get(build.getProject().getFullName());
+        if (byFirst == null) {
+            return;
+        }
+        for (Map.Entry<String, Versions> entry : byFirst.entrySet()) {
+            Versions projectVersions = entry.getValue();
+            boolean taken;
+            synchronized (projectVersions) {
+                taken = projectVersions.contains(build.getNumber());
+            }
+            if (taken) {
+                // A resolve in progress keeps updating the removed versions instead of the ones resolved next
+                byFirst.remove(entry.getKey(), projectVersions);
+            }
+        }
+    }
+
+    void invalidateAll() {
+        versions.clear();
+    }
+
+    /**
+     * The latest build numbers of one project triggered from one first project, per minimum result. Builds that
+     * start or complete while a minimum result is being resolved are kept aside and merged with the resolved build,
+     * since resolving may or may not have seen them.
+     */
+    private static final class Versions {
+        private final int[][] latest = new int[Result.ABORTED.ordinal + 2][];
+        private final int[][] seen = new int[latest.length][];
+
+        private void update(int slot, int[] build) {
+            if (latest[slot] != null) {
+                latest[slot] = newest(latest[slot], build);
+            } else {
+                seen[slot] = seen[slot] != null ? newest(seen[slot], build) : build;
+            }
+        }
+
+        private int[] resolved(int slot, int[] build) {
+            if (latest[slot] == null) {
+                latest[slot] = seen[slot] != null ? newest(seen[slot], build) : build;
+                seen[slot] = null;
+            }
+            return latest[slot];
+        }
+
+        private boolean contains(int number) {
+            for (int slot = 0; slot < latest.length; slot++) {
+                if (latest[slot] != null && latest[slot][0] == number
+                        || seen[slot] != null && seen[slot][0] == number) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int[] newest(int[] a, int[] b) {
+            return a[0] >= b[0] ? a : b;
+        }
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run> {
+
+        @Override
+        public void onStarted(Run run, TaskListener listener) {
+            if (run instanceof AbstractBuild) {
+                get().started((AbstractBuild<?, ?>) run);
+            }
+        }
+
+        @Override
+        public void onCompleted(Run run, TaskListener listener) {
+            if (run instanceof AbstractBuild) {
+                get().completed((AbstractBuild<?, ?>) run);
+            }
+        }
+
+        @Override
+        public void onDeleted(Run run) {
+            if (run instanceof AbstractBuild) {
+                get().deleted((AbstractBuild<?, ?>) run);
+            }
+        }
+    }
+
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onRenamed(Item item, String oldName, String newName) {
+            get().invalidateAll();
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            get().invalidateAll();
+        }
+    }
+}
@@ -105,6 +105,8 @@ function pipelineUtils() {
 
         if (data.error) {
             cErrorDiv.html('Error: ' + data.error).show();
+        } else if (data.partial) {
+            cErrorDiv.html('Some pipelines are still being updated and show older or less detailed data.').show();
         } else {
             cErrorDiv.hide().html('');
         }
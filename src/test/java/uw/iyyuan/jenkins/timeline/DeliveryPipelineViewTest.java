@@ -62,6 +62,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.jvnet.hudson.test.Bug;
+import org.jvnet.hudson.test.FailureBuilder;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.MockFolder;
 import org.jvnet.hudson.test.WithoutJenkins;
@@ -73,12 +74,15 @@ import uw.iyyuan.jenkins.timeline.domain.Component;
 import uw.iyyuan.jenkins.timeline.domain.Pipeline;
 import uw.iyyuan.jenkins.timeline.domain.Stage;
 import uw.iyyuan.jenkins.timeline.domain.task.Task;
+import uw.iyyuan.jenkins.timeline.sort.FailedJobComparator;
+import uw.iyyuan.jenkins.timeline.sort.LatestActivityComparator;
 import uw.iyyuan.jenkins.timeline.sort.NameComparator;
 import uw.iyyuan.jenkins.timeline.trigger.TriggerException;
 import au.com.centrumsystems.hudson.plugin.buildpipeline.trigger.BuildPipelineTrigger;
 
 import com.gargoylesoftware.htmlunit.html.HtmlForm;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.google.common.cache.Cache;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DeliveryPipelineViewTest {
@@ -261,6 +265,12 @@ public class DeliveryPipelineViewTest {
         assertEquals("TestRegex", view.getAggregatedChangesGroupingPattern());
         view.setLinkToConsoleLog(true);
         assertTrue(view.isLinkToConsoleLog());
+        view.setTimeBudget(30);
+        assertEquals(30, view.getTimeBudget());
+        view.setSearchHorizonBuilds(100);
+        assertEquals(100, view.getSearchHorizonBuilds());
+        view.setSearchHorizonDays(7);
+        assertEquals(7, view.getSearchHorizonDays());
     }
 
     @Test
@@ -347,6 +357,22 @@ public class DeliveryPipelineViewTest {
 
     }
 
+    @Test
+    public void testGetPipelinesWhenOneProjectNotFound() throws Exception {
+        jenkins.createFreeStyleProject("build");
+        List<DeliveryPipelineView.ComponentSpec> specs = new ArrayList<DeliveryPipelineView.ComponentSpec>();
+        specs.add(new DeliveryPipelineView.ComponentSpec("Missing", "missing", NONE));
+        specs.add(new DeliveryPipelineView.ComponentSpec("Comp", "build", NONE));
+        DeliveryPipelineView view = new DeliveryPipelineView("name");
+        view.setComponentSpecs(specs);
+        jenkins.getInstance().addView(view);
+
+        List<Component> components = view.getPipelines();
+        assertEquals(1, components.size());
+        assertEquals("Comp", components.get(0).getName());
+        assertEquals("Could not find project: missing", view.getError());
+    }
+
     @Test
     public void testGetItemsAndContainsWithFolders() throws Exception {
         MockFolder folder = jenkins.createFolder("folder");
@@ -451,6 +477,91 @@ public class DeliveryPipelineViewTest {
         assertEquals(2, components.size());
     }
 
+    @Test
+    public void testMaxItemsWithSortingOnlyKeepsMostRecentComponents() throws Exception {
+        FreeStyleProject project1 = jenkins.createFreeStyleProject("compile-Project1");
+        jenkins.createFreeStyleProject("compile-Project2");
+        FreeStyleProject project3 = jenkins.createFreeStyleProject("compile-Project3");
+        jenkins.setQuietPeriod(0);
+        jenkins.buildAndAssertSuccess(project3);
+        jenkins.buildAndAssertSuccess(project1);
+
+        List<DeliveryPipelineView.RegExpSpec> regExpSpecs = new ArrayList<DeliveryPipelineView.RegExpSpec>();
+        regExpSpecs.add(new DeliveryPipelineView.RegExpSpec("^compile-(.*)"));
+        DeliveryPipelineView view = new DeliveryPipelineView("Pipeline");
+        view.setRegexpFirstJobs(regExpSpecs);
+        view.setSorting(LatestActivityComparator.class.getName());
+        view.setMaxNumberOfVisiblePipelines(2);
+        jenkins.getInstance().addView(view);
+
+        List<Component> components = view.getPipelines();
+        assertNull(view.getError());
+        assertEquals(2, components.size());
+        assertEquals("Project1", components.get(0).getName());
+        assertEquals("Project3", components.get(1).getName());
+    }
+
+    @Test
+    public void testMaxItemsWithSortingByNameOnlyBuildsShownComponents() throws Exception {
+        jenkins.createFreeStyleProject("compile-Project3");
+        jenkins.createFreeStyleProject("compile-Project1");
+        jenkins.createFreeStyleProject("compile-Project2");
+
+        List<DeliveryPipelineView.RegExpSpec> regExpSpecs = new ArrayList<DeliveryPipelineView.RegExpSpec>();
+        regExpSpecs.add(new DeliveryPipelineView.RegExpSpec("^compile-(.*)"));
+        DeliveryPipelineView view = new DeliveryPipelineView("Pipeline");
+        view.setRegexpFirstJobs(regExpSpecs);
+        view.setSorting(NameComparator.class.getName());
+        view.setMaxNumberOfVisiblePipelines(1);
+        jenkins.getInstance().addView(view);
+
+        List<Component> components = view.getPipelines();
+        assertNull(view.getError());
+        assertEquals(1, components.size());
+        assertEquals("Project1", components.get(0).getName());
+
+        Field field = DeliveryPipelineView.class.getDeclaredField("LAST_COMPONENTS");
+        field.setAccessible(true);
+        int built = 0;
+        for (Object key : ((Cache<?, ?>) field.get(null)).asMap().keySet()) {
+            if (view.getViewUrl().equals(((List<?>) key).get(0))) {
+                built++;
+            }
+        }
+        assertEquals(1, built);
+    }
+
+    @Test
+    public void testMaxItemsWithSortingIgnoresFailedBuildsOfOtherPipelines() throws Exception {
+        FreeStyleProject project1 = jenkins.createFreeStyleProject("compile-Project1");
+        FreeStyleProject project2 = jenkins.createFreeStyleProject("compile-Project2");
+        FreeStyleProject other = jenkins.createFreeStyleProject("other");
+        FreeStyleProject shared = jenkins.createFreeStyleProject("shared");
+        project1.getPublishersList().add(new BuildTrigger("shared", false));
+        other.getPublishersList().add(new BuildTrigger("shared", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        jenkins.buildAndAssertSuccess(project1);
+        jenkins.waitUntilNoActivity();
+        jenkins.buildAndAssertSuccess(project2);
+        // The last build of the shared job fails, but it belongs to a pipeline outside of the view
+        shared.getBuildersList().add(new FailureBuilder());
+        jenkins.buildAndAssertSuccess(other);
+        jenkins.waitUntilNoActivity();
+
+        List<DeliveryPipelineView.RegExpSpec> regExpSpecs = new ArrayList<DeliveryPipelineView.RegExpSpec>();
+        regExpSpecs.add(new DeliveryPipelineView.RegExpSpec("^compile-(.*)"));
+        DeliveryPipelineView view = new DeliveryPipelineView("Pipeline");
+        view.setRegexpFirstJobs(regExpSpecs);
+        view.setSorting(FailedJobComparator.class.getName());
+        view.setMaxNumberOfVisiblePipelines(1);
+        jenkins.getInstance().addView(view);
+
+        List<Component> components = view.getPipelines();
+        assertNull(view.getError());
+        assertEquals(1, components.size());
+        assertEquals("Project2", components.get(0).getName());
+    }
 
     @Test
     public void testGetPipelines() throws Exception {
@@ -44,6 +44,7 @@ import java.util.logging.StreamHandler;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class ChangeTest {
 
@@ -106,6 +107,22 @@ public class ChangeTest {
         assertEquals("http://somewhere.com/test-user", change.getChangeLink());
     }
 
+    @Test
+    public void testGetChangesCachedForCompletedBuild() throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject("build");
+        FakeRepositoryBrowserSCM scm = new FakeRepositoryBrowserSCM();
+        scm.addChange().withAuthor("test-user").withMsg("Fixed bug");
+        scm.addChange().withAuthor("test-user").withMsg("Fixed another bug");
+        project.setScm(scm);
+        jenkins.setQuietPeriod(0);
+        jenkins.buildAndAssertSuccess(project);
+        AbstractBuild build = project.getLastBuild();
+        List<Change> changes = Change.getChanges(build);
+        assertSame(changes, Change.getChanges(build));
+        assertEquals(2, changes.size());
+        assertSame(changes.get(0).getAuthor(), changes.get(1).getAuthor());
+    }
+
     @Test
     public void testGetChangesWithAnnotator() throws Exception {
         ChangeLogAnnotator.all().add(new ChangeLogAnnotator() {
@@ -0,0 +1,95 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.domain;
+
+import au.com.centrumsystems.hudson.plugin.buildpipeline.trigger.BuildPipelineTrigger;
+import hudson.model.Cause;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.tasks.BuildTrigger;
+import jenkins.model.Jenkins;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class FrozenPipelinesTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Test
+    public void testFinishedInstanceIsReused() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        jenkins.createFreeStyleProject("B");
+        a.getPublishersList().add(new BuildTrigger("B", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+
+        Pipeline prototype = Pipeline.extractPipeline("Pipeline", a);
+        Pipeline first = createPipelineLatest(prototype);
+        assertSame(first, createPipelineLatest(prototype));
+        assertSame(first, createPipelineLatest(Pipeline.extractPipeline("Pipeline", a)));
+    }
+
+    @Test
+    public void testInstanceWithIdleTaskIsRecomputedWithinGrace() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        jenkins.createFreeStyleProject("B");
+        a.getPublishersList().add(new BuildPipelineTrigger("B", null));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+
+        Pipeline prototype = Pipeline.extractPipeline("Pipeline", a);
+        assertNotSame(createPipelineLatest(prototype), createPipelineLatest(prototype));
+    }
+
+    @Test
+    public void testTriggeringDownstreamAgainInvalidatesInstance() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleProject b = jenkins.createFreeStyleProject("B");
+        a.getPublishersList().add(new BuildTrigger("B", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        FreeStyleBuild firstBuild = jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+
+        Pipeline prototype = Pipeline.extractPipeline("Pipeline", a);
+        Pipeline first = createPipelineLatest(prototype);
+        assertEquals("1", first.getStages().get(1).getTasks().get(0).getBuildId());
+
+        jenkins.assertBuildStatusSuccess(b.scheduleBuild2(0, new Cause.UpstreamCause(firstBuild)));
+        jenkins.waitUntilNoActivity();
+
+        Pipeline second = createPipelineLatest(prototype);
+        assertNotSame(first, second);
+        assertEquals("2", second.getStages().get(1).getTasks().get(0).getBuildId());
+    }
+
+    private Pipeline createPipelineLatest(Pipeline prototype) {
+        Component component = new Component("Component", "A", null, false, 3, false, 1);
+        return prototype.createPipelineLatest(1, Jenkins.getInstance(), false, true, component).get(0);
+    }
+}
@@ -20,8 +20,12 @@ package uw.iyyuan.jenkins.timeline.domain;
 import au.com.centrumsystems.hudson.plugin.buildpipeline.BuildPipelineView;
 import au.com.centrumsystems.hudson.plugin.buildpipeline.DownstreamProjectGridBuilder;
 import au.com.centrumsystems.hudson.plugin.buildpipeline.trigger.BuildPipelineTrigger;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
 import hudson.model.Cause;
 import hudson.model.Descriptor;
+import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.model.ItemGroup;
 import hudson.model.Saveable;
@@ -34,6 +38,7 @@ import hudson.plugins.parameterizedtrigger.TriggerBuilder;
 import hudson.tasks.BuildTrigger;
 import hudson.tasks.Publisher;
 import hudson.util.DescribableList;
+import hudson.util.OneShotEvent;
 import jenkins.model.Jenkins;
 import join.JoinTrigger;
 import org.junit.Ignore;
@@ -42,16 +47,22 @@ import org.junit.Test;
 import org.jvnet.hudson.test.Bug;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.MockFolder;
+import org.jvnet.hudson.test.TestBuilder;
 import org.kohsuke.stapler.StaplerRequest;
 import org.mockito.Mockito;
 import uw.iyyuan.jenkins.timeline.PipelineProperty;
 import uw.iyyuan.jenkins.timeline.domain.status.Status;
 import uw.iyyuan.jenkins.timeline.domain.task.Task;
+import uw.iyyuan.jenkins.timeline.test.ParentAwareSCM;
 import uw.iyyuan.jenkins.timeline.util.BuildUtil;
+import uw.iyyuan.jenkins.timeline.util.Deadline;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -704,6 +715,21 @@ public class PipelineTest {
         assertEquals(1, pipelines.size());
     }
 
+    @Test
+    public void testPipelineInstanceLooksUpProjectsByName() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        jenkins.setQuietPeriod(0);
+        jenkins.buildAndAssertSuccess(a);
+        Pipeline prototype = Pipeline.extractPipeline("Pipe", a);
+        Pipeline latest = createPipelineLatest(prototype, Jenkins.getInstance());
+        assertEquals(a, latest.getFirstProject());
+        assertNull(latest.getLastProject());
+
+        a.delete();
+        assertNull(latest.getFirstProject());
+        assertEquals("#1", latest.getVersion());
+    }
+
     private Pipeline createPipelineLatest(Pipeline pipeline, ItemGroup itemGroup) {
         StaplerRequest request = Mockito.mock(StaplerRequest.class);
         Component component = new Component("Component", pipeline.getFirstProject().getFullName(), null, false, 3, pagingEnabledFalse, 1);
@@ -842,4 +868,153 @@ public class PipelineTest {
         assertEquals("Job Util 2", pipeline.getStages().get(0).getTasks().get(2).getId());
         assertEquals("Job C", pipeline.getStages().get(0).getTasks().get(3).getId());
     }
+
+    @Test
+    public void testAggregatedChangesEmptyForEqualVersions() throws Exception {
+        FreeStyleProject first = jenkins.createFreeStyleProject("first");
+        List<FreeStyleBuild> builds = buildsWithChanges(first, 3);
+
+        assertEquals(commitIds(), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy", builds.get(2),
+                builds.get(2))));
+        assertEquals(commitIds("c2", "c3"), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy",
+                builds.get(2), builds.get(0))));
+        assertEquals(commitIds(), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy", builds.get(2),
+                builds.get(2))));
+    }
+
+    @Test
+    public void testAggregatedChangesNextStageMovesForward() throws Exception {
+        FreeStyleProject first = jenkins.createFreeStyleProject("first");
+        List<FreeStyleBuild> builds = buildsWithChanges(first, 5);
+
+        assertEquals(commitIds("c2", "c3", "c4", "c5"), commitIds(AggregatedChanges.getChanges(first, "Build",
+                "Deploy", builds.get(4), builds.get(0))));
+        assertEquals(commitIds("c4", "c5"), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy",
+                builds.get(4), builds.get(2))));
+        assertEquals(commitIds(), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy", builds.get(4),
+                builds.get(4))));
+    }
+
+    @Test
+    public void testAggregatedChangesStageMovesForward() throws Exception {
+        FreeStyleProject first = jenkins.createFreeStyleProject("first");
+        List<FreeStyleBuild> builds = buildsWithChanges(first, 5);
+
+        assertEquals(commitIds("c2", "c3"), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy",
+                builds.get(2), builds.get(0))));
+        assertEquals(commitIds("c2", "c3", "c4", "c5"), commitIds(AggregatedChanges.getChanges(first, "Build",
+                "Deploy", builds.get(4), builds.get(0))));
+        assertEquals(commitIds("c2", "c3", "c4"), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy",
+                builds.get(3), builds.get(0))));
+    }
+
+    @Test
+    public void testAggregatedChangesNonOverlappingMoves() throws Exception {
+        FreeStyleProject first = jenkins.createFreeStyleProject("first");
+        List<FreeStyleBuild> builds = buildsWithChanges(first, 5);
+
+        assertEquals(commitIds("c2"), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy",
+                builds.get(1), builds.get(0))));
+        assertEquals(commitIds("c4", "c5"), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy",
+                builds.get(4), builds.get(2))));
+        assertEquals(commitIds("c1", "c2"), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy",
+                builds.get(1), null)));
+    }
+
+    @Test
+    public void testAggregatedChangesWithRunningBuild() throws Exception {
+        FreeStyleProject first = jenkins.createFreeStyleProject("first");
+        List<FreeStyleBuild> builds = buildsWithChanges(first, 2);
+
+        final OneShotEvent started = new OneShotEvent();
+        final OneShotEvent release = new OneShotEvent();
+        first.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, IOException {
+                started.signal();
+                release.block();
+                return true;
+            }
+        });
+        ((ParentAwareSCM) first.getScm()).addChange("c3");
+        first.scheduleBuild2(0);
+        started.block();
+        FreeStyleBuild running = first.getLastBuild();
+        assertTrue(running.isBuilding());
+
+        assertEquals(commitIds("c2", "c3"), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy",
+                running, builds.get(0))));
+
+        release.signal();
+        jenkins.waitUntilNoActivity();
+        assertFalse(running.isBuilding());
+        assertEquals(commitIds("c2", "c3"), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy",
+                running, builds.get(0))));
+        assertEquals(commitIds("c3"), commitIds(AggregatedChanges.getChanges(first, "Build", "Deploy",
+                running, builds.get(1))));
+    }
+
+    @Test
+    public void testAggregatedChangesKeepLastRangeWhenThin() throws Exception {
+        FreeStyleProject build = jenkins.createFreeStyleProject("build");
+        build.addProperty(new PipelineProperty("Build", "Build", ""));
+        FreeStyleProject deploy = jenkins.createFreeStyleProject("deploy");
+        deploy.addProperty(new PipelineProperty("Deploy", "Deploy", ""));
+        build.getPublishersList().add(new BuildTrigger("deploy", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        Pipeline pipeline = Pipeline.extractPipeline("Pipeline", build);
+        ParentAwareSCM scm = new ParentAwareSCM();
+        build.setScm(scm);
+        scm.addChange("c1");
+        jenkins.buildAndAssertSuccess(build);
+        jenkins.waitUntilNoActivity();
+        // Later versions do not reach the deploy stage
+        build.getPublishersList().clear();
+        jenkins.getInstance().rebuildDependencyGraph();
+        scm.addChange("c2");
+        jenkins.buildAndAssertSuccess(build);
+        scm.addChange("c3");
+        jenkins.buildAndAssertSuccess(build);
+
+        Pipeline aggregated = pipeline.createPipelineAggregatedWithChangesShown(jenkins.getInstance());
+        assertEquals(commitIds("c2", "c3"), commitIds(aggregated.getStages().get(0).getChanges()));
+
+        scm.addChange("c4");
+        jenkins.buildAndAssertSuccess(build);
+        Deadline previous = Deadline.enter(new Deadline(0));
+        try {
+            aggregated = pipeline.createPipelineAggregatedWithChangesShown(jenkins.getInstance());
+        } finally {
+            Deadline.restore(previous);
+        }
+        assertEquals(commitIds("c2", "c3"), commitIds(aggregated.getStages().get(0).getChanges()));
+
+        aggregated = pipeline.createPipelineAggregatedWithChangesShown(jenkins.getInstance());
+        assertEquals(commitIds("c2", "c3", "c4"), commitIds(aggregated.getStages().get(0).getChanges()));
+    }
+
+    private List<FreeStyleBuild> buildsWithChanges(FreeStyleProject project, int count) throws Exception {
+        ParentAwareSCM scm = new ParentAwareSCM();
+        project.setScm(scm);
+        List<FreeStyleBuild> builds = new ArrayList<FreeStyleBuild>();
+        for (int i = 1; i <= count; i++) {
+            scm.addChange("c" + i);
+            builds.add(jenkins.buildAndAssertSuccess(project));
+        }
+        return builds;
+    }
+
+    private static Set<String> commitIds(String... commitIds) {
+        return new HashSet<String>(Arrays.asList(commitIds));
+    }
+
+    private static Set<String> commitIds(Set<Change> changes) {
+        Set<String> commitIds = new HashSet<String>();
+        for (Change change : changes) {
+            commitIds.add(change.getCommitId());
+        }
+        return commitIds;
+    }
 }
@@ -36,6 +36,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class TriggerCauseTest {
@@ -253,6 +254,16 @@ public class TriggerCauseTest {
 
     }
 
+    @Test
+    public void testGetTriggeredByCachedForCompletedBuild() throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject("build");
+        jenkins.setQuietPeriod(0);
+        project.scheduleBuild(new Cause.UserIdCause());
+        jenkins.waitUntilNoActivity();
+        List<TriggerCause> triggeredBy = TriggerCause.getTriggeredBy(project, project.getLastBuild());
+        assertSame(triggeredBy, TriggerCause.getTriggeredBy(project, project.getLastBuild()));
+    }
+
     @Test
     @WithoutJenkins
     public void testHashcodeEquals() {
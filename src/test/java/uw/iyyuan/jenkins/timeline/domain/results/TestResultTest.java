@@ -24,11 +24,14 @@ import hudson.tasks.test.AbstractTestResultAction;
 import hudson.tasks.test.AggregatedTestResultAction;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class TestResultTest {
@@ -63,6 +66,35 @@ public class TestResultTest {
         assertEquals(1, result.size());
     }
 
+    @Test
+    public void testGetTestResultCachedForCompletedBuild() {
+        AbstractBuild<?, ?> build =  mock(AbstractBuild.class);
+        AggregatedTestResultAction tests = mock(AggregatedTestResultAction.class);
+        when(build.getAction(AbstractTestResultAction.class)).thenReturn(tests);
+        when(tests.getTotalCount()).thenReturn(11);
+
+        TestResult.getResults(build);
+        List<TestResult> result = TestResult.getResults(build);
+        assertEquals(11, result.get(0).getTotal());
+        verify(build, times(1)).getAction(AbstractTestResultAction.class);
+    }
+
+    @Test
+    public void testGetTestResultFromSummaryAction() {
+        AbstractBuild<?, ?> build =  mock(AbstractBuild.class);
+        when(build.getUrl()).thenReturn("job/a/1/");
+        TestResult summary = new TestResult("Test Result", "job/a/1/testReport", 1, 2, 3);
+        ResultSummaryAction action = new ResultSummaryAction(build, Collections.singletonList(summary),
+                Collections.<StaticAnalysisResult>emptyList());
+        when(build.getAction(ResultSummaryAction.class)).thenReturn(action);
+
+        List<TestResult> result = TestResult.getResults(build);
+        assertEquals(1, result.size());
+        assertEquals("job/a/1/testReport", result.get(0).getUrl());
+        assertEquals(3, result.get(0).getTotal());
+        verify(build, times(0)).getAction(AbstractTestResultAction.class);
+    }
+
     @Test
     public void testGetTestResultBuildNull() {
         List<TestResult> result = TestResult.getResults(null);
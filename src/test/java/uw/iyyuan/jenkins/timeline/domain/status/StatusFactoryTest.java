@@ -17,6 +17,9 @@ If not, see <http://www.gnu.org/licenses/>.
 */
 package uw.iyyuan.jenkins.timeline.domain.status;
 
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 import org.junit.Test;
 import uw.iyyuan.jenkins.timeline.test.TestUtil;
 
@@ -27,4 +30,12 @@ public class StatusFactoryTest {
         TestUtil.assertUtilityClassWellDefined(StatusFactory.class);
     }
 
+    @Test
+    public void testIdleAndDisabledAreShared() {
+        assertSame(StatusFactory.idle(), StatusFactory.idle());
+        assertSame(StatusFactory.disabled(), StatusFactory.disabled());
+        assertTrue(StatusFactory.idle().isIdle());
+        assertTrue(StatusFactory.disabled().isDisabled());
+    }
+
 }
@@ -29,6 +29,11 @@ import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.MockFolder;
 import uw.iyyuan.jenkins.timeline.DeliveryPipelineView;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -197,6 +202,25 @@ public class ManualStepTest {
 
     }
 
+    @Test
+    public void testGetManualStepAggregatedVersionsFollowBuilds() throws Exception {
+        FreeStyleProject upstream = jenkins.createFreeStyleProject("upstream");
+        FreeStyleProject downstream = jenkins.createFreeStyleProject("downstream");
+        upstream.getPublishersList().add(new BuildPipelineTrigger("downstream", null));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        jenkins.buildAndAssertSuccess(upstream);
+
+        assertEquals(1, ManualStep.getManualStepAggregated(downstream, upstream).getPossibleVersions().size());
+        jenkins.buildAndAssertSuccess(upstream);
+        Map<String, String> versions = ManualStep.getManualStepAggregated(downstream, upstream).getPossibleVersions();
+        assertEquals(Arrays.asList("#2", "#1"), new ArrayList<String>(versions.keySet()));
+
+        upstream.getBuildByNumber(2).delete();
+        versions = ManualStep.getManualStepAggregated(downstream, upstream).getPossibleVersions();
+        assertEquals(Collections.singletonMap("#1", "1"), versions);
+    }
+
     @Test
     public void getManualStepAggregatedNoTrigger() throws Exception {
         FreeStyleProject a =  jenkins.createFreeStyleProject("a");
@@ -24,6 +24,7 @@ import hudson.matrix.AxisList;
 import hudson.matrix.MatrixConfiguration;
 import hudson.matrix.MatrixProject;
 import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
 import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
@@ -46,13 +47,18 @@ import org.jvnet.hudson.test.TestBuilder;
 import org.jvnet.hudson.test.UnstableBuilder;
 import uw.iyyuan.jenkins.timeline.DeliveryPipelineView;
 import uw.iyyuan.jenkins.timeline.PipelineProperty;
+import uw.iyyuan.jenkins.timeline.util.PermissionPartition;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class TaskTest {
@@ -223,6 +229,43 @@ public class TaskTest {
 
     }
 
+    @Test
+    public void testLatestTaskSharedBetweenUsersThatMayReadTheSameProjects() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleProject b = jenkins.createFreeStyleProject("B");
+        b.getBuildersList().add(new FailureBuilder());
+        a.getPublishersList().add(new BuildTrigger("B", false));
+        jenkins.setQuietPeriod(0);
+        jenkins.getInstance().rebuildDependencyGraph();
+        FreeStyleBuild firstBuild = jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+
+        jenkins.getInstance().setSecurityRealm(jenkins.createDummySecurityRealm());
+        GlobalMatrixAuthorizationStrategy gmas = new GlobalMatrixAuthorizationStrategy();
+        gmas.add(Permission.READ, "devel");
+        gmas.add(Jenkins.ADMINISTER, "admin");
+        jenkins.getInstance().setAuthorizationStrategy(gmas);
+
+        List<AbstractProject<?, ?>> projects = Arrays.<AbstractProject<?, ?>>asList(a, b);
+        Task prototype = Task.getPrototypeTask(b, false);
+        SecurityContext oldContext = ACL.impersonate(User.get("admin").impersonate());
+        PermissionPartition partition = PermissionPartition.of(projects);
+        PermissionPartition previous = PermissionPartition.enter(partition);
+        try {
+            Task adminTask = prototype.getLatestTask(jenkins.getInstance(), firstBuild);
+            assertTrue(adminTask.isRebuildable());
+
+            ACL.impersonate(User.get("devel").impersonate());
+            assertEquals(partition, PermissionPartition.of(projects));
+            Task develTask = prototype.getLatestTask(jenkins.getInstance(), firstBuild);
+            assertSame(adminTask, develTask);
+            assertFalse(develTask.isRebuildable());
+        } finally {
+            PermissionPartition.restore(previous);
+            SecurityContextHolder.setContext(oldContext);
+        }
+    }
+
     @Test
     @Bug(30170)
     public void testTaskName() throws Exception {
@@ -241,6 +284,45 @@ public class TaskTest {
                 "...", "1", "1");
     }
 
+    @Test
+    public void testLatestTaskSharesPrototypeDefinition() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        jenkins.createFreeStyleProject("B");
+        a.getPublishersList().add(new BuildTrigger("B", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+
+        Task prototype = Task.getPrototypeTask(a, true);
+        Task idle = prototype.getLatestTask(jenkins.getInstance(), null);
+        assertSame(prototype.getDownstreamTasks(), idle.getDownstreamTasks());
+        assertEquals(prototype.getId(), idle.getId());
+        assertTrue(idle.isInitial());
+        assertSame(prototype.getStatus(), idle.getStatus());
+
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+        Task latest = prototype.getLatestTask(jenkins.getInstance(), build);
+        assertSame(prototype.getDownstreamTasks(), latest.getDownstreamTasks());
+        assertEquals("1", latest.getBuildId());
+    }
+
+    @Test
+    public void testLatestTaskMemoisedUntilBuildStateChanges() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        jenkins.setQuietPeriod(0);
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+
+        Task latest = Task.getPrototypeTask(a, true).getLatestTask(jenkins.getInstance(), build);
+        assertSame(latest, Task.getPrototypeTask(a, true).getLatestTask(jenkins.getInstance(), build));
+
+        jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+        Task recomputed = Task.getPrototypeTask(a, true).getLatestTask(jenkins.getInstance(), build);
+        assertNotSame(latest, recomputed);
+        assertEquals("1", recomputed.getBuildId());
+    }
+
     private void testSimplePipelineTaskNames(String taskNameA, String taskNameB, String expectedBeforeA,
                                              String expectedBeforeB, String expectedAfterA, String expectedAfterB)
             throws Exception {
@@ -0,0 +1,48 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.sort;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SortKeyTest {
+
+    @Test
+    public void shouldCompareValuesInOrder() {
+        assertTrue(new SortKey(0, 5).compareTo(new SortKey(1, 0)) < 0);
+        assertTrue(new SortKey(1, 0).compareTo(new SortKey(0, 5)) > 0);
+        assertTrue(new SortKey(1, -10).compareTo(new SortKey(1, -5)) < 0);
+        assertTrue(new SortKey(1).compareTo(new SortKey(1, 0)) < 0);
+        assertEquals(0, new SortKey(1, 2).compareTo(new SortKey(1, 2)));
+    }
+
+    @Test
+    public void shouldCompareStrings() {
+        assertTrue(new SortKey("a").compareTo(new SortKey("b")) < 0);
+        assertTrue(new SortKey("b", 1).compareTo(new SortKey("b", 0)) > 0);
+        assertEquals(0, new SortKey("a").compareTo(new SortKey("a")));
+    }
+
+    @Test
+    public void shouldBeEqualForSameValues() {
+        assertEquals(new SortKey(1, 2), new SortKey(1, 2));
+        assertEquals(new SortKey(1, 2).hashCode(), new SortKey(1, 2).hashCode());
+    }
+}
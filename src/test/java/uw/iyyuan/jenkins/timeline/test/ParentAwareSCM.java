@@ -51,6 +51,13 @@ public class ParentAwareSCM extends NullSCM {
         return e;
     }
 
+    public FakeChangeLogSCM.EntryImpl addChange(String commitId) {
+        Entry e = new Entry();
+        e.commitId = commitId;
+        this.entries.add(e);
+        return e;
+    }
+
     @Override
     public ChangeLogParser createChangeLogParser() {
         return new FakeChangeLogSCM.FakeChangeLogParser() {
@@ -77,9 +84,16 @@ public class ParentAwareSCM extends NullSCM {
     }
 
     static class Entry extends FakeChangeLogSCM.EntryImpl {
+        private String commitId;
+
         public void setParent(ChangeLogSet changeLogSet) {
             super.setParent(changeLogSet);
         }
+
+        @Override
+        public String getCommitId() {
+            return commitId;
+        }
     }
 
     @Extension(ordinal = Integer.MAX_VALUE)
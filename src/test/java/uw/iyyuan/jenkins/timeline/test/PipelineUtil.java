@@ -34,7 +34,7 @@ import java.util.List;
 public class PipelineUtil {
 
     public static Component createComponent(Status status) {
-        Task task = new Task(null, "task", "Build", status, null, null, null, true, "");
+        Task task = new Task("task", "Build", status, null, null, null, true, "");
 
         List<Task> tasks = new ArrayList<Task>();
         tasks.add(task);
@@ -28,6 +28,7 @@ import org.jvnet.hudson.test.WithoutJenkins;
 import java.io.IOException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -59,6 +60,17 @@ public class TokenUtilsTest {
         assertEquals("${TEST_NESTEDX}", TokenUtils.decodedTemplate(build, "${TEST_NESTEDX}"));
     }
 
+    @Test
+    public void testDecodedTemplateCachedForCompletedBuild() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("a");
+        jenkins.setQuietPeriod(0);
+
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(a);
+        String expanded = TokenUtils.decodedTemplate(build, "1.0.${BUILD_NUMBER}");
+        assertEquals("1.0.1", expanded);
+        assertSame(expanded, TokenUtils.decodedTemplate(build, "1.0.${BUILD_NUMBER}"));
+    }
+
     @Test
     @WithoutJenkins
     public void testDecodedTemplateNoBuild() {
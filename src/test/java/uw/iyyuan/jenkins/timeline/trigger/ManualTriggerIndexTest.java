@@ -0,0 +1,65 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.trigger;
+
+import au.com.centrumsystems.hudson.plugin.buildpipeline.trigger.BuildPipelineTrigger;
+import hudson.model.AbstractProject;
+import hudson.model.FreeStyleProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ManualTriggerIndexTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Test
+    public void testIndexFollowsDependencyGraph() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("a");
+        FreeStyleProject b = jenkins.createFreeStyleProject("b");
+        a.getPublishersList().add(new BuildPipelineTrigger("b", null));
+        jenkins.getInstance().rebuildDependencyGraph();
+
+        ManualTriggerIndex index = ManualTriggerIndex.get();
+        assertSame(index, ManualTriggerIndex.get());
+        assertTrue(index.isManualTrigger(b));
+        assertFalse(index.isManualTrigger(a));
+        assertEquals(Arrays.<AbstractProject>asList(a), index.getUpstreamManualTriggered(b));
+        assertNotNull(index.getManualTrigger(b, a));
+
+        a.getPublishersList().clear();
+        jenkins.getInstance().rebuildDependencyGraph();
+        ManualTriggerIndex rebuilt = ManualTriggerIndex.get();
+        assertNotSame(index, rebuilt);
+        assertFalse(rebuilt.isManualTrigger(b));
+        assertEquals(Collections.<AbstractProject>emptyList(), rebuilt.getUpstreamManualTriggered(b));
+        assertNull(rebuilt.getManualTrigger(b, a));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import com.google.common.base.Function;
+import hudson.model.AbstractBuild;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BuildCacheTest {
+
+    @Test
+    public void testCompletedBuildIsResolvedOnce() {
+        BuildCache<String> cache = new BuildCache<String>(10);
+        AbstractBuild build = mock(AbstractBuild.class);
+        CountingLoader loader = new CountingLoader("value");
+
+        assertEquals("value", cache.get(build, loader));
+        assertEquals("value", cache.get(build, loader));
+        assertEquals(1, loader.calls.get());
+    }
+
+    @Test
+    public void testRunningBuildIsNotCached() {
+        BuildCache<String> cache = new BuildCache<String>(10);
+        AbstractBuild build = mock(AbstractBuild.class);
+        when(build.isBuilding()).thenReturn(true);
+        CountingLoader loader = new CountingLoader("value");
+
+        cache.get(build, loader);
+        cache.get(build, loader);
+        assertEquals(2, loader.calls.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testNullValueIsNotCached() {
+        BuildCache<String> cache = new BuildCache<String>(10);
+        AbstractBuild build = mock(AbstractBuild.class);
+        CountingLoader loader = new CountingLoader(null);
+
+        assertNull(cache.get(build, loader));
+        assertNull(cache.get(build, loader));
+        assertEquals(2, loader.calls.get());
+    }
+
+    @Test
+    public void testInvalidate() {
+        BuildCache<String> cache = new BuildCache<String>(10);
+        AbstractBuild build = mock(AbstractBuild.class);
+        CountingLoader loader = new CountingLoader("value");
+
+        cache.get(build, loader);
+        cache.invalidate(build);
+        cache.get(build, loader);
+        assertEquals(2, loader.calls.get());
+    }
+
+    private static class CountingLoader implements Function<AbstractBuild<?, ?>, String> {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final String value;
+
+        CountingLoader(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String apply(AbstractBuild<?, ?> input) {
+            calls.incrementAndGet();
+            return value;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import hudson.model.AbstractBuild;
 import hudson.model.Cause;
 import hudson.model.CauseAction;
 import hudson.model.FreeStyleProject;
+import hudson.model.TaskListener;
 import hudson.tasks.BuildTrigger;
 import org.junit.Rule;
 import org.junit.Test;
@@ -31,6 +32,7 @@ import uw.iyyuan.jenkins.timeline.test.TestUtil;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.*;
@@ -105,8 +107,44 @@ public class BuildUtilTest {
 
     }
 
+    @Test
+    public void testGetEnvironmentCachedForCompletedBuild() throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject("a");
+        jenkins.setQuietPeriod(0);
+        AbstractBuild build = jenkins.buildAndAssertSuccess(project);
+        Map<String, String> environment = BuildUtil.getEnvironment(build, TaskListener.NULL);
+        assertEquals("1", environment.get("BUILD_NUMBER"));
+        assertSame(environment, BuildUtil.getEnvironment(build, TaskListener.NULL));
+    }
 
-
-
-
+    @Test
+    public void testMatchWithinSearchHorizon() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("a");
+        FreeStyleProject b = jenkins.createFreeStyleProject("b");
+        jenkins.setQuietPeriod(0);
+        AbstractBuild first = jenkins.buildAndAssertSuccess(a);
+        jenkins.buildAndAssertSuccess(b);
+        AbstractBuild triggered = jenkins.assertBuildStatusSuccess(b.scheduleBuild2(0,
+                new Cause.UpstreamCause(first)));
+
+        assertArrayEquals(new int[] {1, 2}, BuildUtil.getSearchRange(b, first, SearchHorizon.UNBOUNDED));
+        assertEquals(triggered, BuildUtil.match(b, first));
+        SearchHorizon previous = SearchHorizon.enter(new SearchHorizon(1, 0));
+        try {
+            assertNull(BuildUtil.match(b, first));
+            assertNull(BuildUtil.matchAll(b, first));
+        } finally {
+            SearchHorizon.restore(previous);
+        }
+        previous = SearchHorizon.enter(new SearchHorizon(2, 1));
+        try {
+            assertEquals(triggered, BuildUtil.match(b, first));
+        } finally {
+            SearchHorizon.restore(previous);
+        }
+
+        AbstractBuild later = jenkins.buildAndAssertSuccess(a);
+        assertNull(BuildUtil.getSearchRange(b, later, SearchHorizon.UNBOUNDED));
+        assertNull(BuildUtil.match(b, later));
+    }
 }
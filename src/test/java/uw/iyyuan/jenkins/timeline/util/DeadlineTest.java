@@ -0,0 +1,82 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlineTest {
+
+    @Test
+    public void testNotThinWithoutDeadline() {
+        assertNull(Deadline.current());
+        assertFalse(Deadline.isThin());
+    }
+
+    @Test
+    public void testThinAfterHalfTheBudget() {
+        Deadline previous = Deadline.enter(new Deadline(60000));
+        try {
+            assertFalse(Deadline.isThin());
+            assertFalse(Deadline.current().isExpired());
+        } finally {
+            Deadline.restore(previous);
+        }
+        previous = Deadline.enter(new Deadline(0));
+        try {
+            assertTrue(Deadline.isThin());
+            assertTrue(Deadline.current().isExpired());
+        } finally {
+            Deadline.restore(previous);
+        }
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void testRecordsWhetherItTurnedThin() {
+        Deadline deadline = new Deadline(0);
+        Deadline fork = deadline.fork();
+        assertTrue(fork.isExpired());
+        Deadline previous = Deadline.enter(fork);
+        try {
+            assertFalse(fork.wasThin());
+            assertTrue(Deadline.isThin());
+            assertTrue(fork.wasThin());
+        } finally {
+            Deadline.restore(previous);
+        }
+        assertFalse(deadline.wasThin());
+        assertFalse(new Deadline(60000).fork().wasThin());
+    }
+
+    @Test
+    public void testEnterReturnsPrevious() {
+        Deadline outer = new Deadline(1000);
+        Deadline inner = new Deadline(1000);
+        assertNull(Deadline.enter(outer));
+        assertSame(outer, Deadline.enter(inner));
+        Deadline.restore(outer);
+        assertSame(outer, Deadline.current());
+        Deadline.restore(null);
+        assertNull(Deadline.current());
+    }
+}
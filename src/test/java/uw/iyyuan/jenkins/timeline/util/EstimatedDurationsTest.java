@@ -0,0 +1,56 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.SleepBuilder;
+import org.jvnet.hudson.test.WithoutJenkins;
+import uw.iyyuan.jenkins.timeline.test.TestUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EstimatedDurationsTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @WithoutJenkins
+    @Test
+    public void testValidUtilClass() throws Exception {
+        TestUtil.assertUtilityClassWellDefined(EstimatedDurations.class);
+    }
+
+    @Test
+    public void testEstimateRefreshedWhenBuildCompletes() throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject("project");
+        FreeStyleBuild first = jenkins.buildAndAssertSuccess(project);
+        long estimate = EstimatedDurations.get(first);
+        assertEquals(project.getEstimatedDuration(), estimate);
+
+        project.getBuildersList().add(new SleepBuilder(1000));
+        FreeStyleBuild second = jenkins.buildAndAssertSuccess(project);
+        assertEquals(project.getEstimatedDuration(), EstimatedDurations.get(second));
+        assertEquals(EstimatedDurations.get(second), EstimatedDurations.get(first));
+        assertTrue(EstimatedDurations.get(second) > estimate);
+    }
+}
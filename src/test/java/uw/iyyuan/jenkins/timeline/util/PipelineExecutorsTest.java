@@ -0,0 +1,73 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import org.junit.Test;
+import uw.iyyuan.jenkins.timeline.test.TestUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+
+public class PipelineExecutorsTest {
+
+    @Test
+    public void testValidUtilClass() throws Exception {
+        TestUtil.assertUtilityClassWellDefined(PipelineExecutors.class);
+    }
+
+    @Test
+    public void testInvokeInstancesKeepsOrder() {
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 10; i++) {
+            final int value = i;
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    Thread.sleep(10 - value);
+                    return value;
+                }
+            });
+        }
+        List<Integer> results = PipelineExecutors.invokeInstances(tasks);
+        assertEquals(10, results.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Integer.valueOf(i), results.get(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvokeInstancesPropagatesFailure() {
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        tasks.add(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return 1;
+            }
+        });
+        tasks.add(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                throw new IllegalArgumentException("failed");
+            }
+        });
+        PipelineExecutors.invokeInstances(tasks);
+    }
+}
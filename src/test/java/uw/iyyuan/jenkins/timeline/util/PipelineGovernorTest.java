@@ -0,0 +1,172 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import org.junit.Test;
+import uw.iyyuan.jenkins.timeline.test.TestUtil;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PipelineGovernorTest {
+
+    @Test
+    public void testValidUtilClass() throws Exception {
+        TestUtil.assertUtilityClassWellDefined(PipelineGovernor.class);
+    }
+
+    @Test
+    public void testComputeReturnsResult() {
+        long computations = PipelineGovernor.getStatistics().getComputations();
+        assertEquals("result", PipelineGovernor.compute(new Object(), new Object(), new Callable<String>() {
+            @Override
+            public String call() {
+                return "result";
+            }
+        }, "fallback"));
+        assertEquals(computations + 1, PipelineGovernor.getStatistics().getComputations());
+        assertEquals(0, PipelineGovernor.getStatistics().getRunning());
+    }
+
+    @Test
+    public void testConcurrentRequestsForSameKeyShareComputation() throws Exception {
+        final Object key = new Object();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<Integer> computation = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return calls.incrementAndGet();
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> first = executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return PipelineGovernor.compute("view", key, computation, -1);
+                }
+            });
+            started.await(5, TimeUnit.SECONDS);
+            long shared = PipelineGovernor.getStatistics().getShared();
+            Thread joiner = new Thread() {
+                @Override
+                public void run() {
+                    PipelineGovernor.compute("view", key, computation, -1);
+                }
+            };
+            joiner.start();
+            while (PipelineGovernor.getStatistics().getShared() == shared) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            joiner.join(5000);
+            assertEquals(Integer.valueOf(1), first.get());
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaitingForPermitCountsAgainstDeadline() throws Exception {
+        final CountDownLatch started = new CountDownLatch(PipelineGovernor.MAX_CONCURRENT);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(PipelineGovernor.MAX_CONCURRENT);
+        try {
+            for (int i = 0; i < PipelineGovernor.MAX_CONCURRENT; i++) {
+                executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return PipelineGovernor.compute(new Object(), new Object(), new Callable<String>() {
+                            @Override
+                            public String call() throws Exception {
+                                started.countDown();
+                                release.await(5, TimeUnit.SECONDS);
+                                return "result";
+                            }
+                        }, "fallback");
+                    }
+                });
+            }
+            started.await(5, TimeUnit.SECONDS);
+            Callable<String> computation = new Callable<String>() {
+                @Override
+                public String call() {
+                    return "result";
+                }
+            };
+            Deadline previous = Deadline.enter(new Deadline(100));
+            long start = System.currentTimeMillis();
+            try {
+                assertEquals("fallback", PipelineGovernor.compute(new Object(), new Object(), computation, "fallback"));
+            } finally {
+                Deadline.restore(previous);
+            }
+            assertTrue(System.currentTimeMillis() - start < PipelineGovernor.WAIT_TIMEOUT);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBusyViewDoesNotTakeAllPermits() throws Exception {
+        final CountDownLatch started = new CountDownLatch(PipelineGovernor.MAX_CONCURRENT_PER_VIEW);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(PipelineGovernor.MAX_CONCURRENT);
+        try {
+            for (int i = 0; i < PipelineGovernor.MAX_CONCURRENT; i++) {
+                executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return PipelineGovernor.compute("busy", new Object(), new Callable<String>() {
+                            @Override
+                            public String call() throws Exception {
+                                started.countDown();
+                                release.await(5, TimeUnit.SECONDS);
+                                return "result";
+                            }
+                        }, "fallback");
+                    }
+                });
+            }
+            started.await(5, TimeUnit.SECONDS);
+            assertEquals("result", PipelineGovernor.compute("other", new Object(), new Callable<String>() {
+                @Override
+                public String call() {
+                    return "result";
+                }
+            }, "fallback"));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -32,6 +32,8 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class ProjectUtilTest {
@@ -136,4 +138,20 @@ public class ProjectUtilTest {
         Map<String, AbstractProject<?, ?>> result = ProjectUtil.getAllDownstreamProjects(null, null);
         assertTrue(result.isEmpty());
     }
+
+    @Test
+    public void testGetProjectFollowsRenameAndDelete() throws Exception {
+        assertNull(ProjectUtil.getProject("build1", jenkins.getInstance()));
+
+        FreeStyleProject build1 = jenkins.createFreeStyleProject("build1");
+        assertSame(build1, ProjectUtil.getProject("build1", jenkins.getInstance()));
+        assertSame(build1, ProjectUtil.getProject("build1", null));
+
+        build1.renameTo("build2");
+        assertNull(ProjectUtil.getProject("build1", jenkins.getInstance()));
+        assertSame(build1, ProjectUtil.getProject("build2", jenkins.getInstance()));
+
+        build1.delete();
+        assertNull(ProjectUtil.getProject("build2", jenkins.getInstance()));
+    }
 }
@@ -0,0 +1,57 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import hudson.model.FreeStyleProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class QueueSnapshotTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Test
+    public void testSnapshotFollowsQueueChanges() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleProject b = jenkins.createFreeStyleProject("B");
+        QueueSnapshot empty = QueueSnapshot.get();
+        assertFalse(empty.isQueued(a));
+        assertNull(empty.getItem(a));
+        assertSame(empty, QueueSnapshot.get());
+
+        a.scheduleBuild2(100);
+        QueueSnapshot queued = QueueSnapshot.get();
+        assertTrue(queued.isQueued(a));
+        assertFalse(queued.isQueued(b));
+        assertNotNull(queued.getItem(a));
+        assertEquals(1, queued.getItems(a).size());
+        assertEquals(0, queued.getItems(b).size());
+
+        jenkins.getInstance().getQueue().cancel(a);
+        assertFalse(QueueSnapshot.get().isQueued(a));
+    }
+}
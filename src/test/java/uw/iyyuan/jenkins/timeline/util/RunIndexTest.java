@@ -0,0 +1,196 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.tasks.BuildTrigger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RunIndexTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Test
+    public void testTriggeredBuildsAreIndexed() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleProject b = jenkins.createFreeStyleProject("B");
+        FreeStyleProject c = jenkins.createFreeStyleProject("C");
+        FreeStyleProject d = jenkins.createFreeStyleProject("D");
+        a.getPublishersList().add(new BuildTrigger("B", false));
+        b.getPublishersList().add(new BuildTrigger("C", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        FreeStyleBuild first = jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+        FreeStyleBuild second = jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+
+        RunIndex index = RunIndex.get();
+        assertEquals(Arrays.asList(1), index.getTriggered(c, first));
+        assertEquals(Arrays.asList(2), index.getTriggered(c, second));
+        assertEquals(Arrays.asList(2), index.getTriggered(a, second));
+        assertEquals(Collections.<Integer>emptyList(), index.getTriggered(d, second));
+        assertEquals(Integer.valueOf(2), index.getFirstUpstream(jenkins.getInstance().getItemByFullName("C",
+                FreeStyleProject.class), a, Result.SUCCESS));
+        assertSame(b.getBuildByNumber(1), BuildUtil.match(b, first));
+        assertEquals(Arrays.asList(b.getBuildByNumber(2)), BuildUtil.matchAll(b, second));
+    }
+
+    @Test
+    public void testIndexSurvivesRestart() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleProject b = jenkins.createFreeStyleProject("B");
+        a.getPublishersList().add(new BuildTrigger("B", Result.FAILURE));
+        a.getBuildersList().add(new FailureBuilder());
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        FreeStyleBuild first = jenkins.assertBuildStatus(Result.FAILURE, a.scheduleBuild2(0).get());
+        jenkins.waitUntilNoActivity();
+
+        RunIndex reloaded = new RunIndex(new File(jenkins.getInstance().getRootDir(), RunIndex.class.getName()));
+        reloaded.load();
+        assertEquals(Arrays.asList(1), reloaded.getTriggered(b, first));
+        assertEquals(Integer.valueOf(-1), reloaded.getFirstUpstream(a, a, Result.SUCCESS));
+        assertEquals(Integer.valueOf(1), reloaded.getFirstUpstream(a, a, Result.FAILURE));
+    }
+
+    @Test
+    public void testUnknownFirstBuildIsNotAnswered() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(a);
+        RunIndex empty = new RunIndex(new File(jenkins.getInstance().getRootDir(), "empty-index"));
+        empty.load();
+        assertNull(empty.getTriggered(a, build));
+        assertNull(empty.getFirstUpstream(a, a, null));
+    }
+
+    @Test
+    public void testIncompleteHistoryOfTargetIsNotAnswered() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleProject b = jenkins.createFreeStyleProject("B");
+        a.getPublishersList().add(new BuildTrigger("B", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        FreeStyleBuild first = jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+
+        RunIndex partial = new RunIndex(new File(jenkins.getInstance().getRootDir(), "partial-index"));
+        partial.load();
+        partial.started(first);
+        partial.completed(first);
+        assertNull(partial.getTriggered(b, first));
+        assertEquals(Arrays.asList(1), partial.getTriggered(a, first));
+    }
+
+    @Test
+    public void testOlderHistoryDoesNotKeepNewBuildsFromBeingAnswered() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleProject b = jenkins.createFreeStyleProject("B");
+        a.getPublishersList().add(new BuildTrigger("B", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        FreeStyleBuild first = jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+
+        File directory = new File(jenkins.getInstance().getRootDir(), "later-index");
+        RunIndex later = new RunIndex(directory);
+        later.load();
+        assertNull(later.getFirstUpstream(b, a, null));
+
+        FreeStyleBuild second = jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+        later.started(second);
+        later.completed(second);
+        later.started(b.getBuildByNumber(2));
+        later.completed(b.getBuildByNumber(2));
+        assertNull(later.getTriggered(b, first));
+        assertEquals(Arrays.asList(2), later.getTriggered(b, second));
+        assertEquals(Integer.valueOf(2), later.getFirstUpstream(b, a, Result.SUCCESS));
+
+        later.compact();
+        RunIndex reloaded = new RunIndex(directory);
+        reloaded.load();
+        assertNull(reloaded.getTriggered(b, first));
+        assertEquals(Arrays.asList(2), reloaded.getTriggered(b, second));
+        assertEquals(Integer.valueOf(2), reloaded.getFirstUpstream(b, a, Result.SUCCESS));
+    }
+
+    @Test
+    public void testRenamedJobKeepsItsBuilds() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleProject b = jenkins.createFreeStyleProject("B");
+        a.getPublishersList().add(new BuildTrigger("B", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        FreeStyleBuild first = jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+
+        b.renameTo("Renamed");
+        RunIndex index = RunIndex.get();
+        assertEquals(Arrays.asList(1), index.getTriggered(b, first));
+        assertSame(b.getBuildByNumber(1), BuildUtil.match(b, first));
+
+        RunIndex reloaded = new RunIndex(new File(jenkins.getInstance().getRootDir(), RunIndex.class.getName()));
+        reloaded.load();
+        assertEquals(Arrays.asList(1), reloaded.getTriggered(b, first));
+
+        b.delete();
+        FreeStyleProject recreated = jenkins.createFreeStyleProject("Renamed");
+        assertEquals(Collections.<Integer>emptyList(), index.getTriggered(recreated, first));
+    }
+
+    @Test
+    public void testCompactedIndexKeepsLiveBuilds() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleProject b = jenkins.createFreeStyleProject("B");
+        a.getPublishersList().add(new BuildTrigger("B", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+        FreeStyleBuild second = jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+        b.getBuildByNumber(1).delete();
+
+        File directory = new File(jenkins.getInstance().getRootDir(), RunIndex.class.getName());
+        File runs = new File(directory, "runs.bin");
+        long before = runs.length();
+        RunIndex.get().compact();
+        assertTrue(runs.length() < before);
+
+        RunIndex reloaded = new RunIndex(directory);
+        reloaded.load();
+        assertEquals(Arrays.asList(2), reloaded.getTriggered(b, second));
+        assertEquals(Integer.valueOf(2), reloaded.getFirstUpstream(b, a, Result.SUCCESS));
+    }
+}
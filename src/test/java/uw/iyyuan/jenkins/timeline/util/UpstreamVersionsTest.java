@@ -0,0 +1,89 @@
+/*
+This file is part of Delivery Pipeline Plugin.
+
+Delivery Pipeline Plugin is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+Delivery Pipeline Plugin is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with Delivery Pipeline Plugin.
+If not, see <http://www.gnu.org/licenses/>.
+*/
+package uw.iyyuan.jenkins.timeline.util;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.tasks.BuildTrigger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+
+public class UpstreamVersionsTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Test
+    public void testVersionsFollowCompletedBuilds() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleProject b = jenkins.createFreeStyleProject("B");
+        a.getPublishersList().add(new BuildTrigger("B", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        UpstreamVersions versions = UpstreamVersions.get();
+        assertEquals(-1, versions.getFirstUpstream(b, a, null));
+
+        jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+        assertEquals(1, versions.getFirstUpstream(b, a, null));
+        assertEquals(1, versions.getFirstUpstream(b, a, Result.SUCCESS));
+        assertEquals(1, versions.getFirstUpstream(a, a, Result.SUCCESS));
+
+        b.getBuildersList().add(new FailureBuilder());
+        jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+        assertEquals(2, versions.getFirstUpstream(b, a, null));
+        assertEquals(1, versions.getFirstUpstream(b, a, Result.SUCCESS));
+        assertEquals(2, versions.getFirstUpstream(b, a, Result.FAILURE));
+        assertEquals(2, versions.getFirstUpstream(a, a, Result.SUCCESS));
+
+        b.getBuildByNumber(2).delete();
+        assertEquals(1, versions.getFirstUpstream(b, a, null));
+    }
+
+    @Test
+    public void testDeletedBuildOnlyForgetsVersionsTakenFromIt() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("A");
+        FreeStyleProject b = jenkins.createFreeStyleProject("B");
+        FreeStyleProject c = jenkins.createFreeStyleProject("C");
+        a.getPublishersList().add(new BuildTrigger("B", false));
+        jenkins.getInstance().rebuildDependencyGraph();
+        jenkins.setQuietPeriod(0);
+        jenkins.buildAndAssertSuccess(c);
+        jenkins.buildAndAssertSuccess(a);
+        jenkins.buildAndAssertSuccess(a);
+        jenkins.waitUntilNoActivity();
+        UpstreamVersions versions = UpstreamVersions.get();
+        assertEquals(2, versions.getFirstUpstream(b, a, null));
+        assertEquals(2, versions.getFirstUpstream(a, a, null));
+
+        // Without its upstream build the newest build of B would no longer resolve to a version
+        a.getBuildByNumber(2).delete();
+        c.getBuildByNumber(1).delete();
+        b.getBuildByNumber(1).delete();
+        assertEquals(2, versions.getFirstUpstream(b, a, null));
+        assertEquals(1, versions.getFirstUpstream(a, a, null));
+
+        b.getBuildByNumber(2).delete();
+        assertEquals(-1, versions.getFirstUpstream(b, a, null));
+    }
+}